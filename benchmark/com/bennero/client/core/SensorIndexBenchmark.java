@@ -0,0 +1,133 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import com.bennero.common.Sensor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Benchmark of finding the sensor data of each sensor in a save, as done when a save is loaded. A save of 500 sensors
+ * is loaded against a catalog of 5,000 sensors, comparing the linear scan of the sensor list that SensorManager used to
+ * do (comparing name, type and hardware type of every sensor data) with the SensorKey index that it does now.
+ *
+ * Run the main method with the editor classes on the class path. The time of each run is printed with the median of
+ * all runs.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorKey
+ * @since 1.0
+ */
+public class SensorIndexBenchmark {
+    private static final int CATALOG_SIZE = 5000;
+    private static final int SAVE_SIZE = 500;
+    private static final int NUM_HARDWARE = 10;
+    private static final int WARM_UP_RUNS = 200;
+    private static final int MEASURED_RUNS = 50;
+
+    public static void main(String[] args) {
+        final SensorManager sensorManager = SensorManager.getInstance();
+
+        // The sensor list as it is held by the sensor manager, and the index kept alongside it
+        List<SensorData> sensorList = new ArrayList<>();
+        Map<SensorKey, SensorData> sensorIndex = new ConcurrentHashMap<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            SensorData sensorData = new SensorData(i, "Sensor " + (i / NUM_HARDWARE), 100.0f,
+                    (byte) (i % 8), "Hardware " + (i % NUM_HARDWARE), 0.0f);
+            sensorList.add(sensorData);
+            sensorIndex.put(SensorKey.of(sensorData), sensorData);
+        }
+
+        // The save uses sensors spread across the catalog, so that the scan does not always find them early
+        List<Sensor> save = new ArrayList<>();
+        for (int i = 0; i < SAVE_SIZE; i++) {
+            SensorData sensorData = sensorList.get((int) ((i * 7919L) % CATALOG_SIZE));
+            Sensor sensor = new Sensor((byte) i, 0, 0, sensorData.getType(), (byte) 0, sensorData.getMax(), 0.0f,
+                    sensorData.getName(), sensorData.getName(), false, 0, 1, 1);
+            sensor.setHardwareType(sensorData.getHardwareType());
+            save.add(sensor);
+        }
+
+        run("Linear scan", () -> loadByScan(sensorManager, sensorList, save));
+        run("SensorKey index", () -> loadByIndex(sensorIndex, save));
+    }
+
+    private static int loadByScan(SensorManager sensorManager, List<SensorData> sensorList, List<Sensor> save) {
+        int found = 0;
+        for (Sensor sensor : save) {
+            for (int i = 0; i < sensorList.size(); i++) {
+                if (sensorManager.compareSensorGuiToData(sensorList.get(i), sensor)) {
+                    found++;
+                    break;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private static int loadByIndex(Map<SensorKey, SensorData> sensorIndex, List<Sensor> save) {
+        int found = 0;
+        for (Sensor sensor : save) {
+            if (sensorIndex.get(SensorKey.of(sensor)) != null) {
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    private static void run(String name, Load load) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            check(load.run());
+        }
+
+        final long[] times = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            final long start = System.nanoTime();
+            check(load.run());
+            times[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(times);
+        System.out.println(name + ": median " + (times[MEASURED_RUNS / 2] / 1000) + "us, min " + (times[0] / 1000) +
+                "us, max " + (times[MEASURED_RUNS - 1] / 1000) + "us to load " + SAVE_SIZE + " sensors against " +
+                CATALOG_SIZE);
+    }
+
+    private static void check(int found) {
+        if (found != SAVE_SIZE) {
+            throw new AssertionError("Found " + found + " of " + SAVE_SIZE + " sensors");
+        }
+    }
+
+    private interface Load {
+        int run();
+    }
+}
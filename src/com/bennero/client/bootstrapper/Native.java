@@ -36,4 +36,13 @@ public class Native {
     public static native void addSensors();
 
     public static native void updateSensors();
+
+    /**
+     * Limit the sensors read by updateSensors to the sensors with the given IDs. Not provided by older bootstrappers,
+     * in which case calling it throws an UnsatisfiedLinkError.
+     *
+     * @param sensorIds IDs of the sensors to read
+     * @since 1.0
+     */
+    public static native void setActiveSensors(int[] sensorIds);
 }
@@ -0,0 +1,89 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.bootstrapper;
+
+import com.bennero.client.sources.SensorSource;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+
+/**
+ * NativeSensorSource acquires sensor data through the native interface registered by the bootstrapper. It is the
+ * source used on Windows, and is only available when the application has been launched by the bootstrapper.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see Native
+ * @since 1.0
+ */
+public class NativeSensorSource implements SensorSource {
+    private static final String LOGGER_TAG = NativeSensorSource.class.getSimpleName();
+
+    private boolean subscriptionSupported;
+
+    public NativeSensorSource() {
+        subscriptionSupported = true;
+    }
+
+    @Override
+    public String getName() {
+        return "Bootstrapper";
+    }
+
+    @Override
+    public boolean open() {
+        try {
+            Native.addSensors();
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            Logger.log(LogLevel.INFO, LOGGER_TAG, "Native interface not available, not launched with the bootstrapper");
+            return false;
+        }
+    }
+
+    @Override
+    public void updateSensors() {
+        Native.updateSensors();
+    }
+
+    @Override
+    public void setActiveSensors(int[] sensorIds) {
+        if (!subscriptionSupported) {
+            return;
+        }
+
+        try {
+            Native.setActiveSensors(sensorIds);
+        } catch (UnsatisfiedLinkError e) {
+            // Older bootstrappers read every sensor, the values of inactive sensors are discarded by the sensor manager
+            subscriptionSupported = false;
+            Logger.log(LogLevel.INFO, LOGGER_TAG, "Bootstrapper does not support sensor subscriptions, all sensors " +
+                    "will be read");
+        }
+    }
+
+    @Override
+    public void close() {
+        // The native interface is owned by the bootstrapper
+    }
+}
@@ -27,7 +27,6 @@ import com.bennero.client.core.SensorData;
 import com.bennero.client.core.SensorManager;
 import com.bennero.common.logging.LogLevel;
 import com.bennero.common.logging.Logger;
-import javafx.application.Platform;
 
 /**
  * SensorRequest is how to register a tracked hardware sensor to the application (not add to a page as a graphic). This
@@ -51,12 +50,17 @@ public class SensorRequest {
         Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Received sensor request: [ID: " + id + "], [Name: " + name +
                 "], [Max: " + max + "], [SensorType: " + sensorType + "], [HardwareType: " + hardwareType +
                 "], [InitialValue: " + initialValue + "]");
-        this.sensorData = new SensorData(id, name, max, sensorType, hardwareType, initialValue);
-        SensorManager.getInstance().addSensorData(sensorData);
+        // Values are set on the sensor data held by the sensor manager, which may be a cached sensor it already had
+        this.sensorData = SensorManager.getInstance().addSensorData(new SensorData(id, name, max, sensorType,
+                hardwareType, initialValue));
     }
 
     public void setValue(float value) {
-        Platform.runLater(() -> sensorData.setValue(value));
+        SensorManager.getInstance().onSensorValue(sensorData, value);
+    }
+
+    public SensorData getSensorData() {
+        return sensorData;
     }
 
     public float getMax() {
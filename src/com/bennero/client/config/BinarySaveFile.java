@@ -0,0 +1,540 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+package com.bennero.client.config;
+
+import com.bennero.client.core.SensorDeadband;
+import com.bennero.client.core.SensorPollRate;
+import com.bennero.common.PageData;
+import com.bennero.common.Sensor;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+import javafx.scene.paint.Color;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BinarySaveFile reads and writes saves in a compact binary layout, an alternative to the XML save format that loads
+ * much faster for large layouts. The file is a fixed size header followed by sections of fixed width records for the
+ * deadbands, poll rates, pages and sensors, and finally a string table. Records refer to strings by their index in the
+ * string table and store colours as packed RGBA integers, so nothing other than the strings needs to be parsed. The
+ * whole file is copied onto the heap in one read and decoded from there.
+ *
+ * All values are big endian. The layout is versioned by the header so that it can be extended later.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SaveData
+ * @since 1.0
+ */
+public class BinarySaveFile {
+    // Class name for logging
+    private static final String CLASS_NAME = BinarySaveFile.class.getSimpleName();
+
+    public static final String FILE_EXTENSION = ".bhwmb";
+
+    private static final int MAGIC = 0x42485742; // "BHWB"
+    private static final short VERSION = 1;
+
+    // Magic, version, padding, sensor update time, animation duration and the count and offset of every section
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4 + (5 * 8);
+    private static final int DEADBAND_RECORD_SIZE = 1 + 4 + 4 + 4;
+    private static final int POLL_RATE_RECORD_SIZE = 1 + 4 + 4;
+    private static final int PAGE_RECORD_SIZE = 1 + (3 * 4) + 4 + 4 + 1 + 4 + 4 + 4 + 4 + 1 + 4 + 4 + 1 + 4 + 4 + 4;
+    private static final int NUM_SENSOR_COLOURS = 12;
+    private static final int SENSOR_RECORD_SIZE = 1 + 4 + 4 + 1 + 1 + 4 + 4 + 4 + 4 + 4 + 1 + 4 + 4 + 4 + 2 +
+            (NUM_SENSOR_COLOURS * 4);
+
+    private static final int NO_STRING = -1;
+
+    private BinarySaveFile() {
+    }
+
+    /**
+     * Check if a file is a binary save by its header
+     *
+     * @param file File to check
+     * @return True if the file starts with the binary save header
+     * @since 1.0
+     */
+    public static boolean isBinarySave(File file) {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return false;
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            return randomAccessFile.readInt() == MAGIC;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Write save data in the binary layout
+     *
+     * @param saveData Save data to write
+     * @return The bytes of the binary save, or null if it could not be written
+     * @since 1.0
+     */
+    public static byte[] write(SaveData saveData) {
+        final ArrayList<PageData> pageDataList = saveData.getPageDataList();
+        final Map<Byte, SensorDeadband> deadbands = saveData.getSensorDeadbands();
+        final Map<Byte, SensorPollRate> pollRates = saveData.getSensorPollRates();
+
+        int numSensors = 0;
+        for (int i = 0; i < pageDataList.size(); i++) {
+            numSensors += pageDataList.get(i).getSensorList().size();
+        }
+
+        final int deadbandOffset = HEADER_SIZE;
+        final int pollRateOffset = deadbandOffset + (deadbands.size() * DEADBAND_RECORD_SIZE);
+        final int pageOffset = pollRateOffset + (pollRates.size() * POLL_RATE_RECORD_SIZE);
+        final int sensorOffset = pageOffset + (pageDataList.size() * PAGE_RECORD_SIZE);
+        final int stringOffset = sensorOffset + (numSensors * SENSOR_RECORD_SIZE);
+
+        try {
+            StringTable stringTable = new StringTable();
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(stringOffset);
+            DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeInt(saveData.getSensorUpdateTime());
+            out.writeInt(saveData.getSensorAnimationDuration());
+
+            // The strings are only known once the records have been written, so the string count is patched in after
+            final int stringCountPosition = out.size();
+            out.writeInt(0);
+            out.writeInt(stringOffset);
+            out.writeInt(deadbands.size());
+            out.writeInt(deadbandOffset);
+            out.writeInt(pollRates.size());
+            out.writeInt(pollRateOffset);
+            out.writeInt(pageDataList.size());
+            out.writeInt(pageOffset);
+            out.writeInt(numSensors);
+            out.writeInt(sensorOffset);
+
+            for (Map.Entry<Byte, SensorDeadband> entry : deadbands.entrySet()) {
+                out.writeByte(entry.getKey());
+                out.writeFloat(entry.getValue().getAbsoluteEpsilon());
+                out.writeFloat(entry.getValue().getRelativeEpsilon());
+                out.writeInt(entry.getValue().getMaxSilenceMs());
+            }
+
+            for (Map.Entry<Byte, SensorPollRate> entry : pollRates.entrySet()) {
+                out.writeByte(entry.getKey());
+                out.writeInt(entry.getValue().getMinIntervalMs());
+                out.writeInt(entry.getValue().getMaxIntervalMs());
+            }
+
+            int firstSensor = 0;
+            for (int i = 0; i < pageDataList.size(); i++) {
+                PageData pageData = pageDataList.get(i);
+                out.writeByte(pageData.getUniqueId());
+                out.writeInt(toRgba(pageData.getColour()));
+                out.writeInt(toRgba(pageData.getTitleColour()));
+                out.writeInt(toRgba(pageData.getSubtitleColour()));
+                out.writeInt(pageData.getRows());
+                out.writeInt(pageData.getColumns());
+                out.writeByte(pageData.getNextPageId());
+                out.writeInt(pageData.getTransitionType());
+                out.writeInt(pageData.getTransitionTime());
+                out.writeInt(pageData.getDurationMs());
+                out.writeInt(stringTable.indexOf(pageData.getTitle()));
+                out.writeBoolean(pageData.isTitleEnabled());
+                out.writeInt(pageData.getTitleAlignment());
+                out.writeInt(stringTable.indexOf(pageData.getSubtitle()));
+                out.writeBoolean(pageData.isSubtitleEnabled());
+                out.writeInt(pageData.getSubtitleAlignment());
+                out.writeInt(firstSensor);
+                out.writeInt(pageData.getSensorList().size());
+                firstSensor += pageData.getSensorList().size();
+            }
+
+            for (int i = 0; i < pageDataList.size(); i++) {
+                final List<Sensor> sensors = pageDataList.get(i).getSensorList();
+                for (int s = 0; s < sensors.size(); s++) {
+                    writeSensor(out, sensors.get(s), stringTable);
+                }
+            }
+
+            final List<byte[]> strings = stringTable.getStrings();
+            for (int i = 0; i < strings.size(); i++) {
+                out.writeInt(strings.get(i).length);
+                out.write(strings.get(i));
+            }
+
+            out.flush();
+            byte[] bytes = byteArrayOutputStream.toByteArray();
+            ByteBuffer.wrap(bytes).putInt(stringCountPosition, strings.size());
+            return bytes;
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to write binary save: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Read a binary save into save data
+     *
+     * @param file     Binary save file
+     * @param saveData Save data to read the file into
+     * @return True if the file was read
+     * @since 1.0
+     */
+    public static boolean read(File file, SaveData saveData) {
+        // The save is copied onto the heap rather than mapped, a mapping would keep the file open until it is garbage
+        // collected which stops the file from being replaced when it is next saved on Windows
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                Logger.log(LogLevel.ERROR, CLASS_NAME, "Binary save is too large: " + file.getAbsolutePath());
+                return false;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Binary save ended after " + buffer.position() + " of " + size + " bytes");
+                }
+            }
+
+            buffer.flip();
+            return read(buffer, saveData);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to read binary save: " + e.getMessage());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Binary save is corrupt: " + file.getAbsolutePath());
+        }
+
+        return false;
+    }
+
+    private static boolean read(ByteBuffer buffer, SaveData saveData) {
+        if (buffer.getInt() != MAGIC) {
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "File is not a binary save");
+            return false;
+        }
+
+        final short version = buffer.getShort();
+        if (version != VERSION) {
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Unsupported binary save version: " + version);
+            return false;
+        }
+
+        buffer.getShort();
+        saveData.setSensorUpdateTime(buffer.getInt());
+        saveData.setSensorAnimationDuration(buffer.getInt());
+        final int numStrings = buffer.getInt();
+        final int stringOffset = buffer.getInt();
+        final int numDeadbands = buffer.getInt();
+        final int deadbandOffset = buffer.getInt();
+        final int numPollRates = buffer.getInt();
+        final int pollRateOffset = buffer.getInt();
+        final int numPages = buffer.getInt();
+        final int pageOffset = buffer.getInt();
+        final int numSensors = buffer.getInt();
+        final int sensorOffset = buffer.getInt();
+
+        // Counts are checked against the size of the file before anything is allocated for them, so a corrupt count
+        // fails the read rather than attempting a huge or negative allocation
+        checkSection(buffer, "string", numStrings, stringOffset, 4);
+        checkSection(buffer, "deadband", numDeadbands, deadbandOffset, DEADBAND_RECORD_SIZE);
+        checkSection(buffer, "poll rate", numPollRates, pollRateOffset, POLL_RATE_RECORD_SIZE);
+        checkSection(buffer, "page", numPages, pageOffset, PAGE_RECORD_SIZE);
+        checkSection(buffer, "sensor", numSensors, sensorOffset, SENSOR_RECORD_SIZE);
+
+        // Strings are decoded up front as records refer to them by index
+        final String[] strings = new String[numStrings];
+        buffer.position(stringOffset);
+        for (int i = 0; i < numStrings; i++) {
+            final int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("String " + i + " length " + length + " out of range");
+            }
+
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        buffer.position(deadbandOffset);
+        for (int i = 0; i < numDeadbands; i++) {
+            final byte sensorType = buffer.get();
+            final float absoluteEpsilon = buffer.getFloat();
+            final float relativeEpsilon = buffer.getFloat();
+            final int maxSilenceMs = buffer.getInt();
+            saveData.getSensorDeadbands().put(sensorType, new SensorDeadband(absoluteEpsilon, relativeEpsilon,
+                    maxSilenceMs));
+        }
+
+        buffer.position(pollRateOffset);
+        for (int i = 0; i < numPollRates; i++) {
+            final byte sensorType = buffer.get();
+            final int minIntervalMs = buffer.getInt();
+            final int maxIntervalMs = buffer.getInt();
+            saveData.getSensorPollRates().put(sensorType, new SensorPollRate(minIntervalMs, maxIntervalMs));
+        }
+
+        for (int i = 0; i < numPages; i++) {
+            buffer.position(pageOffset + (i * PAGE_RECORD_SIZE));
+            final byte id = buffer.get();
+            final Color backgroundColour = fromRgba(buffer.getInt());
+            final Color titleColour = fromRgba(buffer.getInt());
+            final Color subtitleColour = fromRgba(buffer.getInt());
+            final int rows = buffer.getInt();
+            final int columns = buffer.getInt();
+            final byte nextPageId = buffer.get();
+            final int transitionId = buffer.getInt();
+            final int transitionTime = buffer.getInt();
+            final int durationMs = buffer.getInt();
+            final String title = getString(strings, buffer.getInt());
+            final boolean titleEnabled = buffer.get() != 0;
+            final int titleAlignment = buffer.getInt();
+            final String subtitle = getString(strings, buffer.getInt());
+            final boolean subtitleEnabled = buffer.get() != 0;
+            final int subtitleAlignment = buffer.getInt();
+            final int firstSensor = buffer.getInt();
+            final int pageSensors = buffer.getInt();
+
+            if (firstSensor < 0 || pageSensors < 0 || firstSensor + pageSensors > numSensors) {
+                throw new IllegalArgumentException("Page " + id + " sensors out of range");
+            }
+
+            PageData pageData = new PageData(id, backgroundColour, titleColour, subtitleColour, rows, columns,
+                    nextPageId, transitionId, transitionTime, durationMs, title, titleEnabled, titleAlignment,
+                    subtitle, subtitleEnabled, subtitleAlignment);
+
+            for (int s = firstSensor; s < firstSensor + pageSensors; s++) {
+                buffer.position(sensorOffset + (s * SENSOR_RECORD_SIZE));
+                saveData.addLoadedSensor(pageData, readSensor(buffer, strings));
+            }
+
+            saveData.addLoadedPage(pageData);
+        }
+
+        return true;
+    }
+
+    private static void writeSensor(DataOutputStream out, Sensor sensor, StringTable stringTable) throws IOException {
+        out.writeByte(sensor.getUniqueId());
+        out.writeInt(sensor.getRow());
+        out.writeInt(sensor.getColumn());
+        out.writeByte(sensor.getType());
+        out.writeByte(sensor.getSkin());
+        out.writeFloat(sensor.getMax());
+        out.writeFloat(sensor.getThreshold());
+        out.writeInt(stringTable.indexOf(sensor.getOriginalName()));
+        out.writeInt(stringTable.indexOf(sensor.getTitle()));
+        out.writeInt(stringTable.indexOf(sensor.getHardwareType()));
+        out.writeBoolean(sensor.isAverageEnabled());
+        out.writeInt(sensor.getAveragingPeriod());
+        out.writeInt(sensor.getRowSpan());
+        out.writeInt(sensor.getColumnSpan());
+
+        // Every record has room for all of the colours, the mask says which of them the sensor has
+        final Color[] colours = getColours(sensor);
+        short colourMask = 0;
+        for (int i = 0; i < colours.length; i++) {
+            if (colours[i] != null) {
+                colourMask |= 1 << i;
+            }
+        }
+
+        out.writeShort(colourMask);
+        for (int i = 0; i < colours.length; i++) {
+            out.writeInt(colours[i] != null ? toRgba(colours[i]) : 0);
+        }
+    }
+
+    private static Sensor readSensor(ByteBuffer buffer, String[] strings) {
+        final byte id = buffer.get();
+        final int row = buffer.getInt();
+        final int column = buffer.getInt();
+        final byte type = buffer.get();
+        final byte skin = buffer.get();
+        final float max = buffer.getFloat();
+        final float threshold = buffer.getFloat();
+        final String originalName = getString(strings, buffer.getInt());
+        final String title = getString(strings, buffer.getInt());
+        final String hardwareType = getString(strings, buffer.getInt());
+        final boolean averageEnabled = buffer.get() != 0;
+        final int averagingPeriod = buffer.getInt();
+        final int rowSpan = buffer.getInt();
+        final int columnSpan = buffer.getInt();
+        final short colourMask = buffer.getShort();
+
+        Sensor sensor = new Sensor(id, row, column, type, skin, max, threshold, originalName, title, averageEnabled,
+                averagingPeriod, rowSpan, columnSpan);
+        sensor.setHardwareType(hardwareType);
+
+        final Color[] colours = new Color[NUM_SENSOR_COLOURS];
+        for (int i = 0; i < NUM_SENSOR_COLOURS; i++) {
+            final int rgba = buffer.getInt();
+            if ((colourMask & (1 << i)) != 0) {
+                colours[i] = fromRgba(rgba);
+            }
+        }
+
+        setColours(sensor, colours);
+        return sensor;
+    }
+
+    // The order of the colours in a sensor record, this must not change between versions
+    private static Color[] getColours(Sensor sensor) {
+        return new Color[]{sensor.getAverageColour(), sensor.getNeedleColour(), sensor.getValueColour(),
+                sensor.getUnitColour(), sensor.getKnobColour(), sensor.getBarColour(), sensor.getThresholdColour(),
+                sensor.getTitleColour(), sensor.getBarBackgroundColour(), sensor.getForegroundColour(),
+                sensor.getTickLabelColour(), sensor.getTickMarkColour()};
+    }
+
+    private static void setColours(Sensor sensor, Color[] colours) {
+        if (colours[0] != null) {
+            sensor.setAverageColour(colours[0]);
+        }
+
+        if (colours[1] != null) {
+            sensor.setNeedleColour(colours[1]);
+        }
+
+        if (colours[2] != null) {
+            sensor.setValueColour(colours[2]);
+        }
+
+        if (colours[3] != null) {
+            sensor.setUnitColour(colours[3]);
+        }
+
+        if (colours[4] != null) {
+            sensor.setKnobColour(colours[4]);
+        }
+
+        if (colours[5] != null) {
+            sensor.setBarColour(colours[5]);
+        }
+
+        if (colours[6] != null) {
+            sensor.setThresholdColour(colours[6]);
+        }
+
+        if (colours[7] != null) {
+            sensor.setTitleColour(colours[7]);
+        }
+
+        if (colours[8] != null) {
+            sensor.setBarBackgroundColour(colours[8]);
+        }
+
+        if (colours[9] != null) {
+            sensor.setForegroundColour(colours[9]);
+        }
+
+        if (colours[10] != null) {
+            sensor.setTickLabelColour(colours[10]);
+        }
+
+        if (colours[11] != null) {
+            sensor.setTickMarkColour(colours[11]);
+        }
+    }
+
+    // Colours are stored with 8 bits per component, the same precision as the hex strings of the XML save
+    static int toRgba(Color colour) {
+        if (colour == null) {
+            return 0;
+        }
+
+        return ((int) Math.round(colour.getRed() * 255.0) << 24) |
+                ((int) Math.round(colour.getGreen() * 255.0) << 16) |
+                ((int) Math.round(colour.getBlue() * 255.0) << 8) |
+                (int) Math.round(colour.getOpacity() * 255.0);
+    }
+
+    static Color fromRgba(int rgba) {
+        return Color.rgb((rgba >>> 24) & 0xFF, (rgba >>> 16) & 0xFF, (rgba >>> 8) & 0xFF, (rgba & 0xFF) / 255.0);
+    }
+
+    private static String getString(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static void checkSection(ByteBuffer buffer, String name, int count, int offset, int recordSize) {
+        if (count < 0 || offset < 0 || offset > buffer.limit() ||
+                (long) count * recordSize > buffer.limit() - offset) {
+            throw new IllegalArgumentException("Number of " + name + " records " + count + " at offset " + offset +
+                    " out of range");
+        }
+    }
+
+    /**
+     * Table of the strings written to a binary save. Each distinct string is stored once.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> indices;
+        private final List<byte[]> strings;
+
+        private StringTable() {
+            indices = new HashMap<>();
+            strings = new ArrayList<>();
+        }
+
+        private int indexOf(String string) {
+            if (string == null) {
+                return NO_STRING;
+            }
+
+            Integer index = indices.get(string);
+            if (index == null) {
+                index = strings.size();
+                indices.put(string, index);
+                strings.add(string.getBytes(StandardCharsets.UTF_8));
+            }
+
+            return index;
+        }
+
+        private List<byte[]> getStrings() {
+            return strings;
+        }
+    }
+}
@@ -35,6 +35,13 @@ import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * ConfigurationSaveHandler is a base class that provides some basic methods for saving and reading configuration save
@@ -48,6 +55,14 @@ public abstract class ConfigurationSaveHandler extends DefaultHandler {
     // Class name for logging
     private static String CLASS_NAME = ConfigurationSaveHandler.class.getSimpleName();
 
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final String BACKUP_FILE_EXTENSION = ".bak";
+
+    // Number of previous versions of the file to keep, and how often to take one. Saves are frequent, so without an
+    // interval every backup would hold almost the same data
+    private static final int NUM_BACKUPS = 3;
+    private static final long BACKUP_INTERVAL_MS = 5 * 60 * 1000;
+
     private final File file;
 
     private SAXParserFactory factory;
@@ -63,34 +78,184 @@ public abstract class ConfigurationSaveHandler extends DefaultHandler {
 
     protected abstract void save(XMLStreamWriter streamWriter) throws XMLStreamException;
 
-    protected void read() {
+    protected File getFile() {
+        return file;
+    }
+
+    /**
+     * Read the configuration file, if it exists
+     *
+     * @return False if the file exists but could not be parsed
+     * @since 1.0
+     */
+    protected boolean read() {
         if (doesFileExist()) {
             try {
                 factory.newSAXParser().parse(file, this);
             } catch (ParserConfigurationException e) {
                 e.printStackTrace();
+                return false;
             } catch (SAXException e) {
                 e.printStackTrace();
+                return false;
             } catch (IOException e) {
                 e.printStackTrace();
+                return false;
             }
         }
+
+        return true;
     }
 
     public void save() {
+        final byte[] bytes = serialize();
+        if (bytes != null) {
+            write(bytes);
+        }
+    }
+
+    /**
+     * Write the configuration to XML in memory. Kept separate from writing the file so that the configuration can be
+     * captured on the thread that owns it and written to disk elsewhere.
+     *
+     * @return The XML bytes, or null if the configuration could not be written
+     * @since 1.0
+     */
+    protected byte[] serialize() {
         try {
-            Logger.log(LogLevel.INFO, CLASS_NAME, "Saving configuration data");
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
-            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            Writer writer = new OutputStreamWriter(outputStream, "UTF-8");
             XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
             save(streamWriter);
             streamWriter.flush();
             streamWriter.close();
+            writer.flush();
+            return outputStream.toByteArray();
         } catch (XMLStreamException e) {
             e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
         }
+
+        return null;
+    }
+
+    /**
+     * Write previously serialised configuration data to the file. The data is written to a temporary file next to the
+     * configuration file and forced to disk before it replaces the configuration file, so a crash part way through a
+     * save leaves the previous file intact rather than a truncated one.
+     *
+     * @param bytes XML bytes from serialize()
+     * @return True if the file was written
+     * @since 1.0
+     */
+    protected boolean write(byte[] bytes) {
+        return write(file, bytes);
+    }
+
+    /**
+     * Write serialised configuration data to a file, see write(byte[])
+     *
+     * @param destination File to write
+     * @param bytes       Serialised configuration data
+     * @return True if the file was written
+     * @since 1.0
+     */
+    protected boolean write(File destination, byte[] bytes) {
+        Logger.log(LogLevel.INFO, CLASS_NAME, "Saving configuration data");
+        return writeFile(destination, bytes, true);
+    }
+
+    /**
+     * Replace a file with the given bytes without ever leaving a partly written file behind. The bytes are written to
+     * a temporary file next to the destination and forced to disk before it is atomically moved over the destination.
+     *
+     * @param destination File to write
+     * @param bytes       Contents of the file
+     * @return True if the file was written
+     * @since 1.0
+     */
+    static boolean writeFile(File destination, byte[] bytes) {
+        return writeFile(destination, bytes, false);
+    }
+
+    private static boolean writeFile(File destination, byte[] bytes, boolean keepBackups) {
+        final Path path = destination.getAbsoluteFile().toPath();
+        final Path tempPath = path.resolveSibling(path.getFileName() + TEMP_FILE_EXTENSION);
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                channel.force(true);
+            }
+
+            if (keepBackups) {
+                rotateBackups(path);
+            }
+
+            try {
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Logger.log(LogLevel.WARNING, CLASS_NAME, "Atomic move not supported, replacing " + path);
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to write " + path + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException deleteException) {
+                deleteException.printStackTrace();
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Keep the current configuration file as the newest backup, shifting the older backups along and dropping the
+     * oldest. Only done if the newest backup is older than the backup interval.
+     *
+     * @param path Path of the configuration file
+     * @since 1.0
+     */
+    private static void rotateBackups(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            final Path newestBackup = getBackupPath(path, 1);
+            if (Files.exists(newestBackup) && System.currentTimeMillis() -
+                    Files.getLastModifiedTime(newestBackup).toMillis() < BACKUP_INTERVAL_MS) {
+                return;
+            }
+
+            for (int i = NUM_BACKUPS - 1; i > 0; i--) {
+                final Path backup = getBackupPath(path, i);
+                if (Files.exists(backup)) {
+                    Files.move(backup, getBackupPath(path, i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            Files.copy(path, newestBackup, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // A failed backup should not stop the save
+            e.printStackTrace();
+            Logger.log(LogLevel.WARNING, CLASS_NAME, "Failed to back up configuration data: " + e.getMessage());
+        }
+    }
+
+    private static Path getBackupPath(Path path, int backupNumber) {
+        return path.resolveSibling(path.getFileName() + BACKUP_FILE_EXTENSION + backupNumber);
     }
 
     public boolean doesFileExist() {
@@ -0,0 +1,237 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+package com.bennero.client.config;
+
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+import javafx.application.Platform;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DebouncedSaver writes a configuration to disk behind the changes made to it. A change only marks the configuration
+ * as dirty, the file is written once no further change has been made for a quiet period. Editing a layout changes the
+ * save on every drag step and keystroke, so without this the whole file would be rewritten many times a second on the
+ * JavaFX thread.
+ *
+ * The configuration is owned by the JavaFX thread, so it is serialised there and only the file write happens on the
+ * background thread. A flush writes any pending change immediately on the calling thread, which must be the JavaFX
+ * thread while the toolkit is running.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @since 1.0
+ */
+public class DebouncedSaver {
+    /**
+     * Told when the configuration is captured to be written and when that capture is on disk, so that anything the
+     * capture includes can be discarded once it has been written
+     */
+    public interface WriteListener {
+        long onSnapshot();
+
+        void onWritten(long mark, byte[] bytes);
+    }
+
+    // Class name for logging
+    private static final String CLASS_NAME = DebouncedSaver.class.getSimpleName();
+
+    // Shared by every saver, writes are short and there is only ever one save open
+    private static final ScheduledExecutorService writeExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable ->
+            {
+                Thread thread = new Thread(runnable, "SaveWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final ConfigurationSaveHandler saveHandler;
+    private final int quietPeriodMs;
+    private final Object writeLock;
+
+    private WriteListener writeListener;
+    private ScheduledFuture<?> pendingWrite;
+    private int pendingQuietPeriodMs;
+    private boolean dirty;
+
+    // Every serialised snapshot is numbered so that an older snapshot never overwrites a newer one on disk
+    private long snapshotNumber;
+    private long writtenSnapshotNumber;
+
+    public DebouncedSaver(ConfigurationSaveHandler saveHandler, int quietPeriodMs) {
+        this.saveHandler = saveHandler;
+        this.quietPeriodMs = quietPeriodMs;
+        this.writeLock = new Object();
+        this.writeListener = null;
+        this.pendingWrite = null;
+        this.pendingQuietPeriodMs = quietPeriodMs;
+        this.dirty = false;
+        this.snapshotNumber = 0;
+        this.writtenSnapshotNumber = 0;
+    }
+
+    /**
+     * Mark the configuration as changed. The file is written once no further change has been made for the quiet
+     * period.
+     *
+     * @since 1.0
+     */
+    public synchronized void markDirty() {
+        markDirty(quietPeriodMs);
+    }
+
+    /**
+     * Mark the configuration as changed with a specific quiet period. If changes with different quiet periods are
+     * waiting to be written, the shortest is used so that no change waits longer than it asked to.
+     *
+     * @param quietPeriodMs Time without changes before the file is written
+     * @since 1.0
+     */
+    public synchronized void markDirty(int quietPeriodMs) {
+        pendingQuietPeriodMs = dirty ? Math.min(pendingQuietPeriodMs, quietPeriodMs) : quietPeriodMs;
+        dirty = true;
+        if (pendingWrite != null) {
+            pendingWrite.cancel(false);
+        }
+
+        pendingWrite = writeExecutor.schedule(this::writeBehind, pendingQuietPeriodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Write any pending change to disk now on the calling thread. Must be called on the JavaFX thread while the toolkit
+     * is running, as the configuration is serialised on the calling thread.
+     *
+     * @since 1.0
+     */
+    public void flush() {
+        Snapshot snapshot;
+        synchronized (this) {
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+                pendingWrite = null;
+            }
+
+            snapshot = takeSnapshot();
+        }
+
+        write(snapshot);
+    }
+
+    private void writeBehind() {
+        // Serialise on the JavaFX thread as that is the thread that modifies the configuration
+        FutureTask<Snapshot> snapshotTask = new FutureTask<>(() ->
+        {
+            synchronized (this) {
+                return takeSnapshot();
+            }
+        });
+
+        try {
+            Platform.runLater(snapshotTask);
+        } catch (IllegalStateException e) {
+            // The JavaFX toolkit has exited, so nothing else modifies the configuration and it can be written here
+            flush();
+            return;
+        }
+
+        try {
+            write(snapshotTask.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to capture configuration for saving: " + e.getMessage());
+        }
+    }
+
+    private Snapshot takeSnapshot() {
+        if (!dirty) {
+            return null;
+        }
+
+        final long mark = writeListener != null ? writeListener.onSnapshot() : 0;
+        final byte[] bytes = saveHandler.serialize();
+        if (bytes == null) {
+            // Leave the configuration dirty so that the change is not forgotten, it is tried again on the next write
+            return null;
+        }
+
+        dirty = false;
+        return new Snapshot(++snapshotNumber, bytes, mark);
+    }
+
+    private void write(Snapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            if (snapshot.number <= writtenSnapshotNumber) {
+                return;
+            }
+
+            if (!saveHandler.write(snapshot.bytes)) {
+                // Keep the change so that it is retried after the quiet period, and written by a flush on exit
+                Logger.log(LogLevel.WARNING, CLASS_NAME, "Failed to write configuration, retrying later");
+                markDirty();
+                return;
+            }
+
+            writtenSnapshotNumber = snapshot.number;
+
+            WriteListener listener;
+            synchronized (this) {
+                listener = writeListener;
+            }
+
+            if (listener != null) {
+                listener.onWritten(snapshot.mark, snapshot.bytes);
+            }
+        }
+    }
+
+    private static class Snapshot {
+        private final long number;
+        private final byte[] bytes;
+        private final long mark;
+
+        private Snapshot(long number, byte[] bytes, long mark) {
+            this.number = number;
+            this.bytes = bytes;
+            this.mark = mark;
+        }
+    }
+}
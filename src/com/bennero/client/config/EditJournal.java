@@ -0,0 +1,573 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+package com.bennero.client.config;
+
+import com.bennero.common.PageData;
+import com.bennero.common.Sensor;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * EditJournal is an append-only file of the edits made to a save since the save file was last written. Small edits
+ * such as moving a sensor or changing a page title are appended to the journal as a few bytes instead of rewriting the
+ * whole save, and the journal is folded back into the save file when the save is next written in full. Loading a save
+ * reads the save file and then replays its journal.
+ *
+ * The journal header holds the checksum of the save file that its edits were made on top of. Replaying an edit over
+ * a save that already includes it is not safe, removing a page and adding it again would lose the sensors that were
+ * added to it in between, so a journal whose checksum does not match the save file is not replayed. That happens if
+ * the editor stopped after a save was written but before its journal was compacted. Records are checksummed so that a
+ * record cut short by a crash is ignored along with anything after it.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SaveData
+ * @since 1.0
+ */
+public class EditJournal implements DebouncedSaver.WriteListener {
+    // Class name for logging
+    private static final String CLASS_NAME = EditJournal.class.getSimpleName();
+
+    public static final String FILE_EXTENSION = ".journal";
+
+    private static final int MAGIC = 0x424A524E; // "BJRN"
+    private static final short VERSION = 2;
+
+    // Magic, version and the checksum of the save file that the edits were made on top of
+    private static final int HEADER_SIZE = 4 + 2 + 4;
+
+    // Type, payload length and checksum around every record payload
+    private static final int RECORD_OVERHEAD = 1 + 2 + 4;
+
+    private static final byte PAGE_RECORD = 1;
+    private static final byte PAGE_REMOVED_RECORD = 2;
+    private static final byte SENSOR_TRANSFORM_RECORD = 3;
+    private static final byte SENSOR_REMOVED_RECORD = 4;
+
+    private final Path path;
+    private final File saveFile;
+    private final ByteArrayOutputStream recordBytes;
+    private final DataOutputStream recordStream;
+    private final CRC32 crc;
+
+    private FileChannel channel;
+
+    // End of the last valid record, anything after it was cut short and is overwritten by the next record
+    private long length;
+
+    // Number of record bytes removed from the front of the journal by compaction, so that a position in the stream of
+    // every appended edit is discardedBytes plus the offset in the file
+    private long discardedBytes;
+
+    // Checksum of the save file as it is on disk, written to the header
+    private int saveChecksum;
+
+    public EditJournal(File saveFile) {
+        path = getPath(saveFile);
+        this.saveFile = saveFile;
+        recordBytes = new ByteArrayOutputStream();
+        recordStream = new DataOutputStream(recordBytes);
+        crc = new CRC32();
+        channel = null;
+        length = HEADER_SIZE;
+        discardedBytes = 0;
+        saveChecksum = 0;
+    }
+
+    /**
+     * Delete the journal of a save file, if it has one. Used when a save file is replaced by one that the journal was
+     * not written against.
+     *
+     * @param saveFile Save file that the journal belongs to
+     * @return True if there is no longer a journal for the save file
+     * @since 1.0
+     */
+    public static boolean delete(File saveFile) {
+        try {
+            Files.deleteIfExists(getPath(saveFile));
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to delete edit journal of " + saveFile.getAbsolutePath() +
+                    ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static Path getPath(File saveFile) {
+        return saveFile.getAbsoluteFile().toPath().resolveSibling(saveFile.getName() + FILE_EXTENSION);
+    }
+
+    public synchronized long getLength() {
+        return length;
+    }
+
+    public synchronized boolean hasEdits() {
+        return length > HEADER_SIZE;
+    }
+
+    /**
+     * Apply the edits in the journal to save data that has been read from the save file. Nothing is applied if the
+     * journal was not written against the save file as it is now.
+     *
+     * @param saveData Save data to apply the edits to
+     * @return Number of edits applied
+     * @since 1.0
+     */
+    public synchronized int replay(SaveData saveData) {
+        int numEdits = 0;
+        try {
+            // Needed for the header of the journal even if there is nothing to replay
+            saveChecksum = checksum(saveFile);
+            if (!Files.exists(path)) {
+                return 0;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                Logger.log(LogLevel.ERROR, CLASS_NAME, "Ignoring edit journal of an unknown format: " + path);
+                return 0;
+            }
+
+            // The save file was written after these edits were made, it includes them
+            if (buffer.getInt() != saveChecksum) {
+                Logger.log(LogLevel.WARNING, CLASS_NAME, "Ignoring edit journal of an older save file: " + path);
+                return 0;
+            }
+
+            while (buffer.remaining() >= RECORD_OVERHEAD) {
+                final int recordStart = buffer.position();
+                final byte type = buffer.get();
+                final int payloadLength = buffer.getShort() & 0xFFFF;
+                if (buffer.remaining() < payloadLength + 4) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(buffer.array(), recordStart, 3 + payloadLength);
+                if ((int) crc.getValue() != buffer.getInt(recordStart + 3 + payloadLength)) {
+                    break;
+                }
+
+                ByteBuffer payload = ByteBuffer.wrap(buffer.array(), recordStart + 3, payloadLength);
+                replayRecord(type, payload, saveData);
+                buffer.position(recordStart + 3 + payloadLength + 4);
+                length = buffer.position();
+                numEdits++;
+            }
+
+            if (buffer.hasRemaining()) {
+                Logger.log(LogLevel.WARNING, CLASS_NAME, "Edit journal ends with an incomplete edit, ignoring it");
+            }
+        } catch (IOException | BufferUnderflowException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to replay edit journal: " + e.getMessage());
+        }
+
+        Logger.log(LogLevel.INFO, CLASS_NAME, "Replayed " + numEdits + " edits from the edit journal");
+        return numEdits;
+    }
+
+    /**
+     * Record the current state of a page, not including its sensors. Adds the page on replay if it does not exist.
+     *
+     * @param pageData The page that has been edited or added
+     * @return True if the edit was recorded
+     * @since 1.0
+     */
+    public synchronized boolean appendPage(PageData pageData) {
+        try {
+            recordStream.writeByte(pageData.getUniqueId());
+            recordStream.writeInt(BinarySaveFile.toRgba(pageData.getColour()));
+            recordStream.writeInt(BinarySaveFile.toRgba(pageData.getTitleColour()));
+            recordStream.writeInt(BinarySaveFile.toRgba(pageData.getSubtitleColour()));
+            recordStream.writeInt(pageData.getRows());
+            recordStream.writeInt(pageData.getColumns());
+            recordStream.writeByte(pageData.getNextPageId());
+            recordStream.writeInt(pageData.getTransitionType());
+            recordStream.writeInt(pageData.getTransitionTime());
+            recordStream.writeInt(pageData.getDurationMs());
+            writeString(pageData.getTitle());
+            recordStream.writeBoolean(pageData.isTitleEnabled());
+            recordStream.writeInt(pageData.getTitleAlignment());
+            writeString(pageData.getSubtitle());
+            recordStream.writeBoolean(pageData.isSubtitleEnabled());
+            recordStream.writeInt(pageData.getSubtitleAlignment());
+            return appendRecord(PAGE_RECORD);
+        } catch (IOException e) {
+            return failAppend(e);
+        }
+    }
+
+    public synchronized boolean appendPageRemoved(PageData pageData) {
+        try {
+            recordStream.writeByte(pageData.getUniqueId());
+            return appendRecord(PAGE_REMOVED_RECORD);
+        } catch (IOException e) {
+            return failAppend(e);
+        }
+    }
+
+    /**
+     * Record the position and size of a sensor on a page
+     *
+     * @param pageData The page that the sensor is on
+     * @param sensor   The sensor that has been moved or resized
+     * @return True if the edit was recorded
+     * @since 1.0
+     */
+    public synchronized boolean appendSensorTransform(PageData pageData, Sensor sensor) {
+        try {
+            recordStream.writeByte(pageData.getUniqueId());
+            recordStream.writeByte(sensor.getUniqueId());
+            recordStream.writeInt(sensor.getRow());
+            recordStream.writeInt(sensor.getColumn());
+            recordStream.writeInt(sensor.getRowSpan());
+            recordStream.writeInt(sensor.getColumnSpan());
+            return appendRecord(SENSOR_TRANSFORM_RECORD);
+        } catch (IOException e) {
+            return failAppend(e);
+        }
+    }
+
+    public synchronized boolean appendSensorRemoved(PageData pageData, Sensor sensor) {
+        try {
+            recordStream.writeByte(pageData.getUniqueId());
+            recordStream.writeByte(sensor.getUniqueId());
+            return appendRecord(SENSOR_REMOVED_RECORD);
+        } catch (IOException e) {
+            return failAppend(e);
+        }
+    }
+
+    /**
+     * Called as the save is captured to be written, the save includes every edit up to this point in the journal
+     *
+     * @return Position of the end of the journal in the stream of every edit ever appended
+     * @since 1.0
+     */
+    @Override
+    public synchronized long onSnapshot() {
+        return discardedBytes + length;
+    }
+
+    /**
+     * Called once a save has been written, so the edits that it includes are no longer needed. The mark is a position
+     * in the stream of every edit ever appended rather than a file offset, so it stays valid when the journal has been
+     * compacted since the mark was taken. The edits that are kept were made on top of the written save, so the header
+     * is updated to its checksum.
+     *
+     * @param mark  Position of the end of the journal when the save was captured, from onSnapshot()
+     * @param bytes The save as it was written
+     * @since 1.0
+     */
+    @Override
+    public synchronized void onWritten(long mark, byte[] bytes) {
+        CRC32 saveCrc = new CRC32();
+        saveCrc.update(bytes);
+        saveChecksum = (int) saveCrc.getValue();
+
+        // Offset of the mark in the journal file as it is now
+        final long markOffset = mark - discardedBytes;
+        try {
+            if (!hasEdits() || markOffset <= HEADER_SIZE) {
+                if (channel != null || Files.exists(path)) {
+                    openChannel();
+                    writeHeader();
+                }
+
+                return;
+            }
+
+            if (markOffset >= length) {
+                openChannel();
+                writeHeader();
+                channel.truncate(HEADER_SIZE);
+                discardedBytes += length - HEADER_SIZE;
+                length = HEADER_SIZE;
+                return;
+            }
+
+            // Edits were made while the save was being written, so keep the ones after the mark
+            ByteBuffer remaining = ByteBuffer.allocate(HEADER_SIZE + (int) (length - markOffset));
+            remaining.putInt(MAGIC);
+            remaining.putShort(VERSION);
+            remaining.putInt(saveChecksum);
+            openChannel();
+            long position = markOffset;
+            while (remaining.hasRemaining()) {
+                final int read = channel.read(remaining, position);
+                if (read < 0) {
+                    throw new EOFException("Edit journal is shorter than expected");
+                }
+
+                position += read;
+            }
+
+            remaining.flip();
+            close();
+
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (remaining.hasRemaining()) {
+                    tempChannel.write(remaining);
+                }
+
+                tempChannel.force(true);
+            }
+
+            try {
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            discardedBytes += markOffset - HEADER_SIZE;
+            length = remaining.limit();
+        } catch (IOException e) {
+            // The edits are still in the journal, but it is not replayed over the written save as its header is older
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to compact edit journal: " + e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            channel = null;
+        }
+    }
+
+    private void openChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+
+            // A journal that was not replayed may have been written against another save file
+            writeHeader();
+
+            // Drop anything after the last valid record
+            channel.truncate(length);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putInt(saveChecksum);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static int checksum(File file) throws IOException {
+        CRC32 fileCrc = new CRC32();
+        if (file.exists()) {
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) >= 0) {
+                    fileCrc.update(buffer, 0, read);
+                }
+            }
+        }
+
+        return (int) fileCrc.getValue();
+    }
+
+    private boolean appendRecord(byte type) throws IOException {
+        recordStream.flush();
+        final int payloadLength = recordBytes.size();
+        if (payloadLength > 0xFFFF) {
+            recordBytes.reset();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Edit is too large for the edit journal");
+            return false;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + payloadLength);
+        record.put(type);
+        record.putShort((short) payloadLength);
+        record.put(recordBytes.toByteArray());
+        recordBytes.reset();
+        crc.reset();
+        crc.update(record.array(), 0, 3 + payloadLength);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        openChannel();
+        long position = length;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+
+        length = position;
+        return true;
+    }
+
+    private boolean failAppend(IOException e) {
+        recordBytes.reset();
+        e.printStackTrace();
+        Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to append to edit journal: " + e.getMessage());
+        return false;
+    }
+
+    private void writeString(String string) throws IOException {
+        if (string == null) {
+            recordStream.writeShort(-1);
+            return;
+        }
+
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        recordStream.writeShort(bytes.length);
+        recordStream.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void replayRecord(byte type, ByteBuffer payload, SaveData saveData) {
+        final byte pageId = payload.get();
+        final PageData pageData = saveData.findPageData(pageId);
+
+        switch (type) {
+            case PAGE_RECORD:
+                replayPage(pageId, pageData, payload, saveData);
+                break;
+            case PAGE_REMOVED_RECORD:
+                if (pageData != null) {
+                    saveData.removeLoadedPage(pageData);
+                }
+                break;
+            case SENSOR_TRANSFORM_RECORD: {
+                final Sensor sensor = findSensor(pageData, payload.get());
+                final int row = payload.getInt();
+                final int column = payload.getInt();
+                final int rowSpan = payload.getInt();
+                final int columnSpan = payload.getInt();
+                if (sensor != null) {
+                    sensor.setPosition(row, column);
+                    sensor.setRowSpan(rowSpan);
+                    sensor.setColumnSpan(columnSpan);
+                }
+                break;
+            }
+            case SENSOR_REMOVED_RECORD: {
+                final Sensor sensor = findSensor(pageData, payload.get());
+                if (sensor != null) {
+                    saveData.removeLoadedSensor(pageData, sensor);
+                }
+                break;
+            }
+            default:
+                Logger.log(LogLevel.WARNING, CLASS_NAME, "Skipping edit of unknown type: " + type);
+                break;
+        }
+    }
+
+    private static void replayPage(byte pageId, PageData pageData, ByteBuffer payload, SaveData saveData) {
+        final int backgroundColour = payload.getInt();
+        final int titleColour = payload.getInt();
+        final int subtitleColour = payload.getInt();
+        final int rows = payload.getInt();
+        final int columns = payload.getInt();
+        final byte nextPageId = payload.get();
+        final int transitionId = payload.getInt();
+        final int transitionTime = payload.getInt();
+        final int durationMs = payload.getInt();
+        final String title = readString(payload);
+        final boolean titleEnabled = payload.get() != 0;
+        final int titleAlignment = payload.getInt();
+        final String subtitle = readString(payload);
+        final boolean subtitleEnabled = payload.get() != 0;
+        final int subtitleAlignment = payload.getInt();
+
+        if (pageData == null) {
+            saveData.addLoadedPage(new PageData(pageId, BinarySaveFile.fromRgba(backgroundColour),
+                    BinarySaveFile.fromRgba(titleColour), BinarySaveFile.fromRgba(subtitleColour), rows, columns,
+                    nextPageId, transitionId, transitionTime, durationMs, title, titleEnabled, titleAlignment,
+                    subtitle, subtitleEnabled, subtitleAlignment));
+            return;
+        }
+
+        pageData.setColour(BinarySaveFile.fromRgba(backgroundColour));
+        pageData.setTitleColour(BinarySaveFile.fromRgba(titleColour));
+        pageData.setSubtitleColour(BinarySaveFile.fromRgba(subtitleColour));
+        pageData.setRows(rows);
+        pageData.setColumns(columns);
+        pageData.setNextPageId(nextPageId);
+        pageData.setTransitionType(transitionId);
+        pageData.setTransitionTime(transitionTime);
+        pageData.setDurationMs(durationMs);
+        pageData.setTitle(title);
+        pageData.setTitleEnabled(titleEnabled);
+        pageData.setTitleAlignment(titleAlignment);
+        pageData.setSubtitle(subtitle);
+        pageData.setSubtitleEnabled(subtitleEnabled);
+        pageData.setSubtitleAlignment(subtitleAlignment);
+    }
+
+    private static Sensor findSensor(PageData pageData, byte sensorId) {
+        if (pageData != null) {
+            for (Sensor sensor : pageData.getSensorList()) {
+                if ((byte) sensor.getUniqueId() == sensorId) {
+                    return sensor;
+                }
+            }
+        }
+
+        return null;
+    }
+}
@@ -23,7 +23,9 @@
 
 package com.bennero.client.config;
 
+import com.bennero.client.core.SensorDeadband;
 import com.bennero.client.core.SensorManager;
+import com.bennero.client.core.SensorPollRate;
 import com.bennero.common.PageData;
 import com.bennero.common.Sensor;
 import com.bennero.common.logging.LogLevel;
@@ -35,6 +37,7 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Map;
 
 import static com.bennero.common.Constants.SENSOR_POLL_RATE_MS;
 
@@ -54,6 +57,17 @@ public class SaveData extends ConfigurationSaveHandler {
     private static final String SAVE_SENSOR_UPDATE_TIME_TAG = "sensorUpdateTimeMs";
     private static final String SAVE_SENSOR_ANIMATION_DURATION_TAG = "sensorAnimationDurationMs";
 
+    private static final String DEADBAND_ELEMENT_TAG = "deadband";
+    private static final String DEADBAND_SENSOR_TYPE_ELEMENT_TAG = "sensorType";
+    private static final String DEADBAND_ABSOLUTE_EPSILON_ELEMENT_TAG = "absoluteEpsilon";
+    private static final String DEADBAND_RELATIVE_EPSILON_ELEMENT_TAG = "relativeEpsilon";
+    private static final String DEADBAND_MAX_SILENCE_MS_ELEMENT_TAG = "maxSilenceMs";
+
+    private static final String POLL_RATE_ELEMENT_TAG = "pollRate";
+    private static final String POLL_RATE_SENSOR_TYPE_ELEMENT_TAG = "sensorType";
+    private static final String POLL_RATE_MIN_INTERVAL_MS_ELEMENT_TAG = "minIntervalMs";
+    private static final String POLL_RATE_MAX_INTERVAL_MS_ELEMENT_TAG = "maxIntervalMs";
+
     private static final String PAGE_ELEMENT_TAG = "page";
     private static final String PAGE_ID_ELEMENT_TAG = "id";
     private static final String PAGE_BACKGROUND_COLOUR_ELEMENT_TAG = "backgroundColour";
@@ -100,18 +114,98 @@ public class SaveData extends ConfigurationSaveHandler {
     private static final String SENSOR_TICK_LABEL_COLOUR_ELEMENT_TAG = "tickLabelColour";
     private static final String SENSOR_TICK_MARK_COLOUR_ELEMENT_TAG = "tickMarkColour";
 
+    // Time without changes before the save is written to disk
+    private static final int SAVE_QUIET_PERIOD_MS = 1000;
+
+    // Journalled edits are already on disk, so they are only folded into the save file once editing has stopped for a
+    // while, or sooner if the journal has grown large
+    private static final int JOURNAL_COMPACT_QUIET_PERIOD_MS = 30000;
+    private static final long JOURNAL_COMPACT_SIZE_BYTES = 256 * 1024;
+
+    private final DebouncedSaver saver;
+    private final EditJournal journal;
+    private final boolean editable;
+    private final boolean loaded;
+    private boolean binary;
     private int sensorUpdateTime;
     private int sensorAnimationDuration;
+    private Map<Byte, SensorDeadband> sensorDeadbands;
+    private Map<Byte, SensorPollRate> sensorPollRates;
     private ArrayList<PageData> pageDataList;
     private PageData currentPageData;
 
     public SaveData(File file) {
+        this(file, true);
+    }
+
+    /**
+     * Create save data from a file. The format of an existing file is detected from its header, a new file is binary
+     * if it has the binary save extension.
+     *
+     * @param file     Save file
+     * @param editable If the save is opened to be edited. An editable save registers its sensors with the sensor
+     *                 manager and folds its edit journal into the save file. Not wanted if the save is only being
+     *                 read to convert it.
+     * @since 1.0
+     */
+    SaveData(File file, boolean editable) {
         super(file);
+        saver = new DebouncedSaver(this, SAVE_QUIET_PERIOD_MS);
+        journal = new EditJournal(file);
+        this.editable = editable;
+        binary = file.exists() ? BinarySaveFile.isBinarySave(file) :
+                file.getName().endsWith(BinarySaveFile.FILE_EXTENSION);
         sensorUpdateTime = SENSOR_POLL_RATE_MS;
         sensorAnimationDuration = 1000;
+        sensorDeadbands = SensorDeadband.createDefaults();
+        sensorPollRates = SensorPollRate.createDefaults();
         pageDataList = new ArrayList<>();
         currentPageData = null;
-        super.read();
+
+        // A save that has not been written yet is loaded as an empty save
+        if (binary) {
+            loaded = !file.exists() || BinarySaveFile.read(file, this);
+        } else {
+            loaded = super.read();
+        }
+
+        if (!loaded) {
+            // Nothing is saved over an unreadable save, and any sensors read before the failure are not displayed
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Failed to load save: " + file.getAbsolutePath());
+            if (editable) {
+                for (PageData pageData : pageDataList) {
+                    for (Sensor sensor : pageData.getSensorList()) {
+                        SensorManager.getInstance().unregisterSensor(sensor);
+                    }
+                }
+            }
+
+            pageDataList.clear();
+            return;
+        }
+
+        // Apply the edits made since the save file was last written
+        final int numEdits = journal.replay(this);
+        if (editable) {
+            saver.setWriteListener(journal);
+            if (numEdits > 0) {
+                saver.markDirty(JOURNAL_COMPACT_QUIET_PERIOD_MS);
+            }
+        }
+    }
+
+    /**
+     * If the save file was read. A save that failed to load is never written, so that the file is not replaced.
+     *
+     * @return True if the save file was read
+     * @since 1.0
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isBinary() {
+        return binary;
     }
 
     public int getSensorUpdateTime() {
@@ -130,6 +224,14 @@ public class SaveData extends ConfigurationSaveHandler {
         this.sensorAnimationDuration = sensorAnimationDuration;
     }
 
+    public Map<Byte, SensorDeadband> getSensorDeadbands() {
+        return sensorDeadbands;
+    }
+
+    public Map<Byte, SensorPollRate> getSensorPollRates() {
+        return sensorPollRates;
+    }
+
     public final ArrayList<PageData> getPageDataList() {
         return pageDataList;
     }
@@ -141,12 +243,134 @@ public class SaveData extends ConfigurationSaveHandler {
 
     public void addPageData(PageData pageData) {
         this.pageDataList.add(pageData);
-        save();
+
+        // The journal only records the page itself, so a page that already has sensors is saved in full
+        if (!pageData.getSensorList().isEmpty() || !journal.appendPage(pageData)) {
+            save();
+        } else {
+            journalled();
+        }
     }
 
     public void removePageData(PageData pageData) {
         this.pageDataList.remove(pageData);
-        save();
+        if (journal.appendPageRemoved(pageData)) {
+            journalled();
+        } else {
+            save();
+        }
+    }
+
+    /**
+     * Save an edit to the properties of a page, such as its title or colours, by appending it to the edit journal
+     *
+     * @param pageData The page that has been edited
+     * @since 1.0
+     */
+    public void savePage(PageData pageData) {
+        if (journal.appendPage(pageData)) {
+            journalled();
+        } else {
+            save();
+        }
+    }
+
+    /**
+     * Save a sensor that has been moved or resized by appending it to the edit journal
+     *
+     * @param pageData The page that the sensor is on
+     * @param sensor   The sensor that has been moved or resized
+     * @since 1.0
+     */
+    public void saveSensorTransform(PageData pageData, Sensor sensor) {
+        if (journal.appendSensorTransform(pageData, sensor)) {
+            journalled();
+        } else {
+            save();
+        }
+    }
+
+    /**
+     * Save the removal of a sensor from a page by appending it to the edit journal
+     *
+     * @param pageData The page that the sensor was on
+     * @param sensor   The sensor that has been removed
+     * @since 1.0
+     */
+    public void saveSensorRemoved(PageData pageData, Sensor sensor) {
+        if (journal.appendSensorRemoved(pageData, sensor)) {
+            journalled();
+        } else {
+            save();
+        }
+    }
+
+    private void journalled() {
+        saver.markDirty(journal.getLength() >= JOURNAL_COMPACT_SIZE_BYTES ? 0 : JOURNAL_COMPACT_QUIET_PERIOD_MS);
+    }
+
+    /**
+     * Mark the save as changed. The file is written in the background once the save has not changed for a short
+     * period, so that continuous edits such as dragging a sensor do not rewrite the file on every step.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void save() {
+        saver.markDirty();
+    }
+
+    /**
+     * Write the save to disk immediately, used when the user has finished an edit and on exit
+     *
+     * @since 1.0
+     */
+    public void saveNow() {
+        saver.markDirty();
+        saver.flush();
+    }
+
+    /**
+     * Write any change that is waiting to be saved to disk immediately
+     *
+     * @since 1.0
+     */
+    public void flush() {
+        saver.flush();
+    }
+
+    /**
+     * Write any waiting change and release the edit journal, used when another save is opened
+     *
+     * @since 1.0
+     */
+    public void close() {
+        saver.flush();
+        journal.close();
+    }
+
+    /**
+     * Write the save to another file, in either the XML or binary format
+     *
+     * @param destination File to write the save to
+     * @param binary      True to write the binary format, false to write XML
+     * @return True if the save was written
+     * @since 1.0
+     */
+    public boolean writeTo(File destination, boolean binary) {
+        final byte[] bytes = binary ? BinarySaveFile.write(this) : super.serialize();
+        if (bytes == null || !write(destination, bytes)) {
+            return false;
+        }
+
+        // A journal left next to the destination belongs to the file that was there before, replaying it over the
+        // converted save would apply edits that it does not contain
+        return EditJournal.delete(destination);
+    }
+
+    @Override
+    protected byte[] serialize() {
+        return binary ? BinarySaveFile.write(this) : super.serialize();
     }
 
     @Override
@@ -157,6 +381,12 @@ public class SaveData extends ConfigurationSaveHandler {
             case SAVE_ELEMENT_TAG:
                 parseSaveData(attributes);
                 break;
+            case DEADBAND_ELEMENT_TAG:
+                parseDeadbandData(attributes);
+                break;
+            case POLL_RATE_ELEMENT_TAG:
+                parsePollRateData(attributes);
+                break;
             case PAGE_ELEMENT_TAG:
                 parsePageData(attributes);
                 break;
@@ -185,6 +415,61 @@ public class SaveData extends ConfigurationSaveHandler {
         //System.out.println();
     }
 
+    private void parseDeadbandData(Attributes attributes) {
+        Byte sensorType = null;
+        float absoluteEpsilon = 0.0f;
+        float relativeEpsilon = 0.0f;
+        int maxSilenceMs = SensorDeadband.DEFAULT_MAX_SILENCE_MS;
+
+        for (int i = 0; i < attributes.getLength(); i++) {
+            String attributeName = attributes.getQName(i);
+            String attributeValue = attributes.getValue(i);
+
+            // Parse attributes
+            if (attributeName.compareTo(DEADBAND_SENSOR_TYPE_ELEMENT_TAG) == 0) {
+                sensorType = Byte.parseByte(attributeValue);
+            } else if (attributeName.compareTo(DEADBAND_ABSOLUTE_EPSILON_ELEMENT_TAG) == 0) {
+                absoluteEpsilon = Float.parseFloat(attributeValue);
+            } else if (attributeName.compareTo(DEADBAND_RELATIVE_EPSILON_ELEMENT_TAG) == 0) {
+                relativeEpsilon = Float.parseFloat(attributeValue);
+            } else if (attributeName.compareTo(DEADBAND_MAX_SILENCE_MS_ELEMENT_TAG) == 0) {
+                maxSilenceMs = Integer.parseInt(attributeValue);
+            }
+        }
+
+        if (sensorType != null) {
+            sensorDeadbands.put(sensorType, new SensorDeadband(absoluteEpsilon, relativeEpsilon, maxSilenceMs));
+        } else {
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Deadband in save is missing a sensor type");
+        }
+    }
+
+    private void parsePollRateData(Attributes attributes) {
+        Byte sensorType = null;
+        int minIntervalMs = SensorPollRate.EVERY_POLL;
+        int maxIntervalMs = SensorPollRate.EVERY_POLL;
+
+        for (int i = 0; i < attributes.getLength(); i++) {
+            String attributeName = attributes.getQName(i);
+            String attributeValue = attributes.getValue(i);
+
+            // Parse attributes
+            if (attributeName.compareTo(POLL_RATE_SENSOR_TYPE_ELEMENT_TAG) == 0) {
+                sensorType = Byte.parseByte(attributeValue);
+            } else if (attributeName.compareTo(POLL_RATE_MIN_INTERVAL_MS_ELEMENT_TAG) == 0) {
+                minIntervalMs = Integer.parseInt(attributeValue);
+            } else if (attributeName.compareTo(POLL_RATE_MAX_INTERVAL_MS_ELEMENT_TAG) == 0) {
+                maxIntervalMs = Integer.parseInt(attributeValue);
+            }
+        }
+
+        if (sensorType != null) {
+            sensorPollRates.put(sensorType, new SensorPollRate(minIntervalMs, maxIntervalMs));
+        } else {
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Poll rate in save is missing a sensor type");
+        }
+    }
+
     @Override
     protected void save(XMLStreamWriter streamWriter) throws XMLStreamException {
         int depth = 0;
@@ -197,6 +482,32 @@ public class SaveData extends ConfigurationSaveHandler {
         streamWriter.writeAttribute(SAVE_SENSOR_ANIMATION_DURATION_TAG, Integer.toString(sensorAnimationDuration));
         writeIndentation(streamWriter, ++depth, true);
 
+        // Save the sensor deadbands used to filter which values are sent to the hardware monitor
+        for (Map.Entry<Byte, SensorDeadband> entry : sensorDeadbands.entrySet()) {
+            SensorDeadband deadband = entry.getValue();
+            streamWriter.writeEmptyElement(DEADBAND_ELEMENT_TAG);
+            streamWriter.writeAttribute(DEADBAND_SENSOR_TYPE_ELEMENT_TAG, Byte.toString(entry.getKey()));
+            streamWriter.writeAttribute(DEADBAND_ABSOLUTE_EPSILON_ELEMENT_TAG,
+                    Float.toString(deadband.getAbsoluteEpsilon()));
+            streamWriter.writeAttribute(DEADBAND_RELATIVE_EPSILON_ELEMENT_TAG,
+                    Float.toString(deadband.getRelativeEpsilon()));
+            streamWriter.writeAttribute(DEADBAND_MAX_SILENCE_MS_ELEMENT_TAG,
+                    Integer.toString(deadband.getMaxSilenceMs()));
+            writeIndentation(streamWriter, depth, true);
+        }
+
+        // Save the sensor poll rates used to decide how often each type of sensor is sampled
+        for (Map.Entry<Byte, SensorPollRate> entry : sensorPollRates.entrySet()) {
+            SensorPollRate pollRate = entry.getValue();
+            streamWriter.writeEmptyElement(POLL_RATE_ELEMENT_TAG);
+            streamWriter.writeAttribute(POLL_RATE_SENSOR_TYPE_ELEMENT_TAG, Byte.toString(entry.getKey()));
+            streamWriter.writeAttribute(POLL_RATE_MIN_INTERVAL_MS_ELEMENT_TAG,
+                    Integer.toString(pollRate.getMinIntervalMs()));
+            streamWriter.writeAttribute(POLL_RATE_MAX_INTERVAL_MS_ELEMENT_TAG,
+                    Integer.toString(pollRate.getMaxIntervalMs()));
+            writeIndentation(streamWriter, depth, true);
+        }
+
         // Save all of the pages
         for (int p = 0; p < pageDataList.size(); p++) {
             PageData temp = pageDataList.get(p);
@@ -383,6 +694,70 @@ public class SaveData extends ConfigurationSaveHandler {
         //System.out.println();
     }
 
+    PageData findPageData(byte pageId) {
+        for (int i = 0; i < pageDataList.size(); i++) {
+            if ((byte) pageDataList.get(i).getUniqueId() == pageId) {
+                return pageDataList.get(i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Remove a page while replaying the edit journal, without saving
+     *
+     * @param pageData The page to remove
+     * @since 1.0
+     */
+    void removeLoadedPage(PageData pageData) {
+        pageDataList.remove(pageData);
+        if (editable) {
+            for (Sensor sensor : pageData.getSensorList()) {
+                SensorManager.getInstance().unregisterSensor(sensor);
+            }
+        }
+    }
+
+    /**
+     * Remove a sensor from its page while replaying the edit journal, without saving
+     *
+     * @param pageData The page that the sensor is on
+     * @param sensor   The sensor to remove
+     * @since 1.0
+     */
+    void removeLoadedSensor(PageData pageData, Sensor sensor) {
+        pageData.removeSensor(sensor);
+        if (editable) {
+            SensorManager.getInstance().unregisterSensor(sensor);
+        }
+    }
+
+    /**
+     * Add a page read from a binary save or the edit journal, without saving
+     *
+     * @param pageData The page that has been read
+     * @since 1.0
+     */
+    void addLoadedPage(PageData pageData) {
+        pageDataList.add(pageData);
+    }
+
+    /**
+     * Add a sensor read from a binary save to its page, without saving
+     *
+     * @param pageData The page that the sensor is on
+     * @param sensor   The sensor that has been read
+     * @since 1.0
+     */
+    void addLoadedSensor(PageData pageData, Sensor sensor) {
+        if (editable) {
+            SensorManager.getInstance().registerExistingSensor(sensor);
+        }
+
+        pageData.addSensor(sensor);
+    }
+
     public void parseSensorData(Attributes attributes) {
         if (currentPageData != null) {
             int id = 0;
@@ -480,7 +855,9 @@ public class SaveData extends ConfigurationSaveHandler {
             Sensor sensor = new Sensor((byte)id, row, column, (byte) type, skin, max, threshold, originalName, title, averageEnabled,
                     averagingPeriod, rowSpan, columnSpan);
             sensor.setHardwareType(hardwareType);
-            SensorManager.getInstance().registerExistingSensor(sensor);
+            if (editable) {
+                SensorManager.getInstance().registerExistingSensor(sensor);
+            }
 
             if (foregroundColour != null) {
                 sensor.setForegroundColour(foregroundColour);
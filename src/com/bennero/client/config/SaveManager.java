@@ -25,10 +25,13 @@ package com.bennero.client.config;
 
 import com.bennero.client.core.ApplicationCore;
 import com.bennero.client.core.CoreUtils;
+import com.bennero.client.core.SensorManager;
 import com.bennero.client.network.NetworkClient;
 import com.bennero.client.util.PageGenerator;
 import com.bennero.common.PageData;
 import com.bennero.common.Sensor;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.TextInputDialog;
@@ -46,6 +49,9 @@ import java.util.Optional;
  * @since 1.0
  */
 public class SaveManager {
+    // Class name for logging
+    private static final String CLASS_NAME = SaveManager.class.getSimpleName();
+
     private static SaveManager instance = null;
 
     private SaveData currentSaveData;
@@ -66,9 +72,22 @@ public class SaveManager {
         File selectedFile = CoreUtils.showFileSelector();
 
         if (selectedFile != null) {
-            // Remove all pages from hardware monitor
-            purgeCurrentPages();
-            SaveManager.getInstance().loadSave(selectedFile);
+            SaveData previousSaveData = currentSaveData;
+            if (!SaveManager.getInstance().loadSave(selectedFile)) {
+                // Go back to the save that was open before, its file is unchanged as it was written when it closed
+                if (previousSaveData != null) {
+                    loadSave(previousSaveData.getFile());
+                }
+
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to load save", ButtonType.OK);
+                alert.setContentText("There was an error loading the save '" + selectedFile.getName() + "'. It " +
+                        "may be corrupt or not a save file.");
+                alert.showAndWait();
+                return false;
+            }
+
+            // Change the hardware monitors layout to the one in the opened save
+            syncDisplayLayout(previousSaveData);
 
             return true;
         }
@@ -99,12 +118,14 @@ public class SaveManager {
                     alert.setContentText("A save file with that name already exists in the directory, please use another name");
                     alert.showAndWait();
                 } else {
-                    // Remove all pages from hardware monitor
-                    saveManager.purgeCurrentPages();
+                    SaveData previousSaveData = saveManager.getSaveData();
 
                     // Update the config so that this is the last opened file and therefore will open on next
                     // start-up
                     saveManager.newSave(new File(programConfigManager.getFileAreaPath() + "\\" + fileName));
+
+                    // Remove the previous saves pages from the hardware monitor
+                    saveManager.syncDisplayLayout(previousSaveData);
                     return true;
                 }
             }
@@ -113,15 +134,20 @@ public class SaveManager {
         return false;
     }
 
-    private void purgeCurrentPages() {
-        // If current save data is not null, remove all the pages from the monitor
-        SaveData saveData = SaveManager.getInstance().getSaveData();
-        if (saveData != null) {
-            final NetworkClient networkClient = NetworkClient.getInstance();
-            final ArrayList<PageData> pageData = saveData.getPageDataList();
-            for (int i = 0; i < pageData.size(); i++) {
-                networkClient.writeRemovePageMessage((byte) pageData.get(i).getUniqueId());
+    private void syncDisplayLayout(SaveData previousSaveData) {
+        final NetworkClient networkClient = NetworkClient.getInstance();
+        if (networkClient.isConnected() && currentSaveData != null) {
+            // If it is not known what the monitor holds, the best that can be done is removing all of the pages of the
+            // previous save before sending the whole current layout
+            if (!networkClient.isDisplayLayoutKnown() && previousSaveData != null) {
+                final ArrayList<PageData> pageData = previousSaveData.getPageDataList();
+                for (int i = 0; i < pageData.size(); i++) {
+                    networkClient.writeRemovePageMessage((byte) pageData.get(i).getUniqueId());
+                }
             }
+
+            // Only the pages and sensors that differ from what the monitor holds are sent
+            networkClient.writeLayoutChanges(currentSaveData.getPageDataList());
         }
     }
 
@@ -140,7 +166,20 @@ public class SaveManager {
 
     public boolean loadSave(File file) {
         if (file != null && file.exists()) {
+            closeSave();
+
+            // The sensors of the previous save are no longer displayed, loading the save registers its own sensors
+            SensorManager.getInstance().unregisterAllSensors();
             currentSaveData = new SaveData(file);
+            if (!currentSaveData.isLoaded()) {
+                currentSaveData = null;
+                NetworkClient.getInstance().updateLayoutHash();
+                return false;
+            }
+
+            SensorManager.getInstance().setSensorDeadbands(currentSaveData.getSensorDeadbands());
+            SensorManager.getInstance().setSensorPollRates(currentSaveData.getSensorPollRates());
+            SensorManager.getInstance().setPollInterval(currentSaveData.getSensorUpdateTime());
             ArrayList<PageData> pageDataList = currentSaveData.getPageDataList();
             int highestId = 0;
             for (int i = 0; i < pageDataList.size(); i++) {
@@ -152,6 +191,7 @@ public class SaveManager {
             PageGenerator.setNextAvailablePageId((byte)(highestId + 1));
             ProgramConfigManager.getInstance().setLastLoadedFilePath(file.getAbsolutePath());
             ApplicationCore.getInstance().getWindow().updateWindowTitle(file.getName());
+            NetworkClient.getInstance().updateLayoutHash();
 
             return true;
         }
@@ -160,17 +200,156 @@ public class SaveManager {
     }
 
     public void newSave(File file) {
-        if (!file.getAbsolutePath().endsWith(".bhwms")) {
+        closeSave();
+        SensorManager.getInstance().unregisterAllSensors();
+        if (!file.getAbsolutePath().endsWith(".bhwms") &&
+                !file.getAbsolutePath().endsWith(BinarySaveFile.FILE_EXTENSION)) {
             currentSaveData = new SaveData(new File(file.getAbsolutePath() + ".bhwms"));
         } else {
             currentSaveData = new SaveData(file);
         }
 
-        currentSaveData.save();
+        currentSaveData.saveNow();
+        SensorManager.getInstance().setSensorDeadbands(currentSaveData.getSensorDeadbands());
+        SensorManager.getInstance().setSensorPollRates(currentSaveData.getSensorPollRates());
+        SensorManager.getInstance().setPollInterval(currentSaveData.getSensorUpdateTime());
+        NetworkClient.getInstance().updateLayoutHash();
 
         ProgramConfigManager.getInstance().setLastLoadedFilePath(file.getAbsolutePath());
     }
 
+    /**
+     * Write any change to the current save that is waiting to be saved to disk
+     *
+     * @since 1.0
+     */
+    public void flush() {
+        SaveData saveData = currentSaveData;
+        if (saveData != null) {
+            saveData.flush();
+        }
+    }
+
+    private void closeSave() {
+        if (currentSaveData != null) {
+            currentSaveData.close();
+        }
+    }
+
+    /**
+     * Convert a save between the XML and binary formats. The format written is decided by the extension of the
+     * destination, a destination ending in the binary save extension is written as binary and anything else as XML.
+     * The source format is detected from the file itself. An existing destination is replaced along with its journal.
+     *
+     * @param source      Save file to convert
+     * @param destination File to write the converted save to
+     * @return True if the save was converted
+     * @since 1.0
+     */
+    public boolean convertSave(File source, File destination) {
+        if (source == null || !source.exists()) {
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Cannot convert save that does not exist: " + source);
+            return false;
+        }
+
+        // The save being edited may have changes that have not been written to the file yet
+        if (currentSaveData != null && currentSaveData.getFile().getAbsoluteFile().equals(source.getAbsoluteFile())) {
+            currentSaveData.flush();
+        }
+
+        final boolean binary = destination.getName().endsWith(BinarySaveFile.FILE_EXTENSION);
+        Logger.log(LogLevel.INFO, CLASS_NAME, "Converting save '" + source.getAbsolutePath() + "' to " +
+                (binary ? "binary" : "XML") + " save '" + destination.getAbsolutePath() + "'");
+        SaveData saveData = new SaveData(source, false);
+        return saveData.isLoaded() && saveData.writeTo(destination, binary);
+    }
+
+    /**
+     * Convert the open save to the XML or binary format and continue editing the converted save. The converted save is
+     * written next to the open save with the same name, the open save is left as it is. The user is asked before a
+     * file that already has that name is replaced.
+     *
+     * @param binary True to convert to the binary format, false to convert to XML
+     * @return True if the save was converted and opened
+     * @since 1.0
+     */
+    public boolean convertCurrentSave(boolean binary) {
+        if (currentSaveData == null || currentSaveData.isBinary() == binary) {
+            return false;
+        }
+
+        // Options such as the sensor update interval are changed without marking the save as changed
+        currentSaveData.saveNow();
+
+        final File source = currentSaveData.getFile();
+        final File destination = getConvertedFile(source, binary);
+        if (destination.exists()) {
+            Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Save File Already Exists", ButtonType.YES,
+                    ButtonType.NO);
+            alert.setContentText("A save file named '" + destination.getName() + "' already exists in the " +
+                    "directory. Do you want to replace it with the converted save?");
+            alert.showAndWait();
+            if (alert.getResult() != ButtonType.YES) {
+                return false;
+            }
+        }
+
+        if (!convertSave(source, destination)) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to convert save", ButtonType.OK);
+            alert.setContentText("There was an error converting the save to the " + (binary ? "binary" : "XML") +
+                    " format. The save has not been changed.");
+            alert.showAndWait();
+            return false;
+        }
+
+        // The converted save has the same layout, so the hardware monitor does not need to be updated
+        return loadSave(destination);
+    }
+
+    /**
+     * Convert an XML save to a binary save next to it with the same name. An existing file with that name is not
+     * replaced.
+     *
+     * @param source XML save file
+     * @return The binary save file, or null if the save could not be converted
+     * @since 1.0
+     */
+    public File convertToBinary(File source) {
+        return convertToNewFile(source, getConvertedFile(source, true));
+    }
+
+    /**
+     * Convert a binary save to an XML save next to it with the same name. An existing file with that name is not
+     * replaced.
+     *
+     * @param source Binary save file
+     * @return The XML save file, or null if the save could not be converted
+     * @since 1.0
+     */
+    public File convertToXml(File source) {
+        return convertToNewFile(source, getConvertedFile(source, false));
+    }
+
+    private File convertToNewFile(File source, File destination) {
+        if (destination.exists()) {
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Did not convert save because '" + destination.getAbsolutePath() +
+                    "' already exists");
+            return null;
+        }
+
+        return convertSave(source, destination) ? destination : null;
+    }
+
+    private static File getConvertedFile(File source, boolean binary) {
+        return new File(source.getParentFile(), replaceExtension(source.getName(),
+                binary ? BinarySaveFile.FILE_EXTENSION : ".bhwms"));
+    }
+
+    private static String replaceExtension(String fileName, String extension) {
+        final int extensionStart = fileName.lastIndexOf('.');
+        return (extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName) + extension;
+    }
+
     public boolean containsSaveData() {
         return currentSaveData != null;
     }
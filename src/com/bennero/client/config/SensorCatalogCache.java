@@ -0,0 +1,136 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.config;
+
+import com.bennero.client.core.SensorData;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+import com.bennero.common.osspecific.OSUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * SensorCatalogCache stores the sensors discovered by the sensor source in a compact binary file in the program data
+ * directory. On launch the cached sensors are added straight away so that a save can be loaded and displayed before
+ * the hardware has been enumerated, which can take several seconds. The sensor manager reconciles the cached sensors
+ * with the discovered ones when enumeration finishes, and the cache is then rewritten.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see com.bennero.client.core.SensorManager
+ * @since 1.0
+ */
+public class SensorCatalogCache {
+    private static final String CLASS_NAME = SensorCatalogCache.class.getSimpleName();
+
+    private static final String CACHE_FILE_NAME = "sensorCatalog.cache";
+    private static final int CACHE_MAGIC = 0x42534343;
+    private static final short CACHE_VERSION = 1;
+
+    private SensorCatalogCache() {
+    }
+
+    /**
+     * Load the cached sensors
+     *
+     * @return The cached sensors, or an empty list if there is no cache or it could not be read
+     * @since 1.0
+     */
+    public static List<SensorData> load() {
+        List<SensorData> sensors = new ArrayList<>();
+        File file = getCacheFile();
+        if (!file.exists()) {
+            return sensors;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readShort() != CACHE_VERSION) {
+                Logger.log(LogLevel.WARNING, CLASS_NAME, "Ignoring sensor catalog cache of an unknown format");
+                return sensors;
+            }
+
+            final int numSensors = in.readInt();
+            for (int i = 0; i < numSensors; i++) {
+                final int id = in.readInt();
+                final String name = in.readUTF();
+                final float max = in.readFloat();
+                final byte type = in.readByte();
+                final String hardwareType = in.readUTF();
+                final float initialValue = in.readFloat();
+                sensors.add(new SensorData(id, name, max, type, hardwareType, initialValue));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.WARNING, CLASS_NAME, "Failed to read sensor catalog cache, ignoring it");
+            sensors.clear();
+        }
+
+        return sensors;
+    }
+
+    /**
+     * Write the discovered sensors to the cache. The cache replaces the previous one in the same way as a save file,
+     * so a failed write never leaves a partial cache behind.
+     *
+     * @param sensors The discovered sensors
+     * @since 1.0
+     */
+    public static void save(Collection<SensorData> sensors) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeShort(CACHE_VERSION);
+            out.writeInt(sensors.size());
+            for (SensorData sensorData : sensors) {
+                out.writeInt(sensorData.getId());
+                out.writeUTF(sensorData.getBaseName());
+                out.writeFloat(sensorData.getMax());
+                out.writeByte(sensorData.getType());
+                out.writeUTF(sensorData.getHardwareType());
+                out.writeFloat(sensorData.getInitialValue());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.WARNING, CLASS_NAME, "Failed to write sensor catalog cache");
+            return;
+        }
+
+        if (ConfigurationSaveHandler.writeFile(getCacheFile(), bytes.toByteArray())) {
+            Logger.log(LogLevel.DEBUG, CLASS_NAME, "Wrote " + sensors.size() + " sensors to the catalog cache");
+        }
+    }
+
+    private static File getCacheFile() {
+        return new File(OSUtils.getApplicationDataDirectory() + File.separator + CACHE_FILE_NAME);
+    }
+}
@@ -29,8 +29,6 @@ import com.bennero.client.network.ConnectedEvent;
 import com.bennero.client.network.NetworkClient;
 import com.bennero.client.network.NetworkScanner;
 import com.bennero.client.states.*;
-import com.bennero.common.PageData;
-import com.bennero.common.Sensor;
 import com.bennero.common.logging.LogLevel;
 import com.bennero.common.logging.Logger;
 import com.bennero.common.networking.ConnectionInformation;
@@ -66,6 +64,9 @@ public class ApplicationCore extends Application {
     private static final String CLASS_NAME = ApplicationCore.class.getSimpleName();
     private static final String RES_PATH_PARAMETER = "-respath=";
 
+    // -synthetic=<number of sensors>[,<poll interval ms>] generates synthetic sensors for scale testing
+    private static final String SYNTHETIC_PARAMETER = "-synthetic=";
+
     public static ApplicationCore applicationCore = null;
     private static StateData currentStateData = null;
 
@@ -137,6 +138,12 @@ public class ApplicationCore extends Application {
         // Process parameters
         processParameters();
 
+        // Add the sensors found on the previous launch so that the save can be loaded before the hardware has been
+        // enumerated
+        if (!sensorManager.isUsingSyntheticSensors()) {
+            sensorManager.addCachedSensors();
+        }
+
         systemTrayManager = SystemTrayManager.getInstance();
         systemTrayManager.addToSystemTray();
 
@@ -144,6 +151,10 @@ public class ApplicationCore extends Application {
 
         this.window = new Window(stage);
         stage.getIcons().add(new Image(getClass().getClassLoader().getResourceAsStream("icon.png")));
+
+        // Sensor GUIs are only updated while the window is showing
+        stage.showingProperty().addListener((observableValue, wasShowing, isShowing) ->
+                sensorManager.setGuiUpdatesEnabled(isShowing));
         setApplicationState(new LoadingStateData("Launching Editor"));
 
         // Check if the program has been launched before
@@ -185,14 +196,14 @@ public class ApplicationCore extends Application {
             }
         }
 
-        // Add the sensors to the application and start the thread that updates them
-        sensorManager.addNativeSensors();
+        // Start the thread that updates the sensors, it enumerates the sensors of the sensor source first
         sensorManager.startSensorUpdateThread();
     }
 
     @Override
     public void stop() throws Exception {
         Logger.log(LogLevel.INFO, CLASS_NAME, "Stopping application");
+        SaveManager.getInstance().flush();
         systemTrayManager.removeFromSystemTray();
         super.stop();
         System.exit(0);
@@ -228,23 +239,45 @@ public class ApplicationCore extends Application {
             if (parameter.startsWith(RES_PATH_PARAMETER)) {
                 String fileArea = parameter.substring(RES_PATH_PARAMETER.length());
                 Logger.log(LogLevel.INFO, CLASS_NAME, "Set resource path from parameter to: " + fileArea);
+            } else if (parameter.startsWith(SYNTHETIC_PARAMETER)) {
+                processSyntheticParameter(parameter.substring(SYNTHETIC_PARAMETER.length()));
             }
         }
     }
 
-    private void sendCurrentSave() {
-        ArrayList<PageData> pageDataList = saveManager.getSaveData().getPageDataList();
+    private void processSyntheticParameter(String value) {
+        try {
+            String[] values = value.split(",");
+            final int numSensors = Integer.parseInt(values[0].trim());
+            final int pollIntervalMs = values.length > 1 ? Integer.parseInt(values[1].trim()) : 0;
+            if (numSensors <= 0) {
+                Logger.log(LogLevel.ERROR, CLASS_NAME, "Number of synthetic sensors must be positive: " + value);
+                return;
+            }
 
-        // Send all of the pages to the monitor
-        if (NetworkClient.getInstance().isConnected()) {
-            for (PageData pageData : pageDataList) {
-                NetworkClient.getInstance().writePageMessage(pageData);
+            sensorManager.useSyntheticSensors(numSensors, pollIntervalMs);
+            Logger.log(LogLevel.INFO, CLASS_NAME, "Set synthetic sensors from parameter to: [SENSORS: " + numSensors +
+                    "], [POLL INTERVAL: " + (pollIntervalMs > 0 ? pollIntervalMs + "ms" : "from save") + "]");
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, CLASS_NAME, "Invalid synthetic sensor parameter: " + value);
+        }
+    }
 
-                // Send all sensors contained in the pages to the monitor
-                for (Sensor sensor : pageData.getSensorList()) {
-                    NetworkClient.getInstance().writeSensorMessage(sensor, (byte) pageData.getUniqueId());
-                }
+    private void sendCurrentSave() {
+        // Send all of the pages and the sensors contained in them to the monitor in one layout snapshot, unless the
+        // monitor reported that it already holds this layout (e.g. when reconnecting after a heartbeat timeout)
+        NetworkClient networkClient = NetworkClient.getInstance();
+        if (networkClient.isConnected()) {
+            if (networkClient.isDisplayLayoutCurrent(saveManager.getSaveData().getPageDataList())) {
+                Logger.log(LogLevel.INFO, CLASS_NAME, "Hardware monitor already holds the current layout, not resending");
+                networkClient.setDisplayLayout(saveManager.getSaveData().getPageDataList());
+            } else {
+                networkClient.writeLayoutSnapshot(saveManager.getSaveData().getPageDataList());
             }
+
+            // Bind the sensor GUIs that show the same sensor to one source channel
+            sensorManager.writeSourceChannels();
         }
     }
 
@@ -56,7 +56,7 @@ public class CoreUtils {
         }
 
         FileChooser.ExtensionFilter extensionFilter = new FileChooser.ExtensionFilter(
-                "Benner Hardware Monitor Save (*.bhwms)", "*.bhwms");
+                "Benner Hardware Monitor Save (*.bhwms, *.bhwmb)", "*.bhwms", "*.bhwmb");
         fileChooser.getExtensionFilters().add(extensionFilter);
 
         return fileChooser.showOpenDialog(ApplicationCore.getInstance().getWindow().getStage());
@@ -26,17 +26,25 @@ package com.bennero.client.core;
 import com.bennero.common.Sensor;
 import com.bennero.common.SensorType;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class SensorData {
+    public static final int NO_CHANNEL = -1;
+
     private final int id;
+    private final String baseName;
     private final String name;
     private final float max;
     private final byte type;
     private final String hardwareType;
     private final float initialValue;
 
-    private ArrayList<Sensor> sensorList;
+    // Sensor GUIs are added on the JavaFX thread but read by the sensor poll thread
+    private final List<Sensor> sensorList;
+
+    // Source channel that values of this sensor are sent on, while it is active
+    private volatile int channelId;
 
     public SensorData(int id,
                       String name,
@@ -45,12 +53,14 @@ public class SensorData {
                       String hardwareType,
                       float initialValue) {
         this.id = id;
+        this.baseName = name;
         this.name = name + " (" + SensorType.getSuffix(type) + ")";
         this.max = max;
         this.type = type;
         this.hardwareType = hardwareType;
         this.initialValue = initialValue;
-        sensorList = new ArrayList<>();
+        sensorList = new CopyOnWriteArrayList<>();
+        channelId = NO_CHANNEL;
     }
 
     public int getId() {
@@ -61,6 +71,14 @@ public class SensorData {
         return name;
     }
 
+    /**
+     * @return Name of the sensor as provided by the sensor source, without the unit suffix
+     * @since 1.0
+     */
+    public String getBaseName() {
+        return baseName;
+    }
+
     public float getMax() {
         return max;
     }
@@ -77,10 +95,40 @@ public class SensorData {
         return initialValue;
     }
 
+    public int getChannelId() {
+        return channelId;
+    }
+
+    public void setChannelId(int channelId) {
+        this.channelId = channelId;
+    }
+
+    public List<Sensor> getSensorList() {
+        return sensorList;
+    }
+
     public void addSensor(Sensor sensor) {
         this.sensorList.add(sensor);
     }
 
+    public void removeSensor(Sensor sensor) {
+        this.sensorList.remove(sensor);
+    }
+
+    public void removeAllSensors() {
+        this.sensorList.clear();
+    }
+
+    /**
+     * A sensor is active while it is placed on a page, only active sensors need to be read
+     *
+     * @return True if at least one sensor GUI displays this sensor
+     * @since 1.0
+     */
+    public boolean isActive() {
+        return !sensorList.isEmpty();
+    }
+
     public void setValue(float value) {
         for (int i = 0; i < sensorList.size(); i++) {
             sensorList.get(i).setValue(value);
@@ -0,0 +1,99 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import com.bennero.common.SensorType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SensorDeadband defines how much a sensor value has to change before the new value is worth sending to the hardware
+ * monitor. A change is significant if it is larger than the absolute epsilon or the relative epsilon (a fraction of the
+ * last sent value), whichever band is wider. If nothing significant has been sent for the max silence period, the
+ * latest value is sent anyway as a keep-alive. Deadbands are configured per sensor type and stored with the save.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorValueFilter
+ * @since 1.0
+ */
+public class SensorDeadband {
+    public static final int DEFAULT_MAX_SILENCE_MS = 5000;
+
+    private float absoluteEpsilon;
+    private float relativeEpsilon;
+    private int maxSilenceMs;
+
+    public SensorDeadband(float absoluteEpsilon, float relativeEpsilon, int maxSilenceMs) {
+        this.absoluteEpsilon = absoluteEpsilon;
+        this.relativeEpsilon = relativeEpsilon;
+        this.maxSilenceMs = maxSilenceMs;
+    }
+
+    /**
+     * Create the deadbands used when a save does not specify any. Types that are not listed here have no deadband, so
+     * every change of their value is sent.
+     *
+     * @return Map of sensor type to deadband
+     * @since 1.0
+     */
+    public static Map<Byte, SensorDeadband> createDefaults() {
+        Map<Byte, SensorDeadband> deadbands = new HashMap<>();
+        deadbands.put(SensorType.TEMPERATURE, new SensorDeadband(0.1f, 0.0f, DEFAULT_MAX_SILENCE_MS));
+        deadbands.put(SensorType.LOAD, new SensorDeadband(0.5f, 0.0f, DEFAULT_MAX_SILENCE_MS));
+        deadbands.put(SensorType.CLOCK, new SensorDeadband(1.0f, 0.005f, DEFAULT_MAX_SILENCE_MS));
+        deadbands.put(SensorType.POWER, new SensorDeadband(0.1f, 0.01f, DEFAULT_MAX_SILENCE_MS));
+        return deadbands;
+    }
+
+    public boolean isSignificantChange(float previousValue, float newValue) {
+        final float band = Math.max(absoluteEpsilon, relativeEpsilon * Math.abs(previousValue));
+        return Math.abs(newValue - previousValue) > band;
+    }
+
+    public float getAbsoluteEpsilon() {
+        return absoluteEpsilon;
+    }
+
+    public void setAbsoluteEpsilon(float absoluteEpsilon) {
+        this.absoluteEpsilon = absoluteEpsilon;
+    }
+
+    public float getRelativeEpsilon() {
+        return relativeEpsilon;
+    }
+
+    public void setRelativeEpsilon(float relativeEpsilon) {
+        this.relativeEpsilon = relativeEpsilon;
+    }
+
+    public int getMaxSilenceMs() {
+        return maxSilenceMs;
+    }
+
+    public void setMaxSilenceMs(int maxSilenceMs) {
+        this.maxSilenceMs = maxSilenceMs;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import javafx.application.Platform;
+
+/**
+ * SensorGuiUpdater applies the new sensor values of a poll to the sensor GUIs in a single JavaFX runnable per poll,
+ * rather than one runnable per value. It is a consumer of the sensor value store, so each update only visits the
+ * sensors that changed. If the JavaFX thread has not got round to applying the previous poll yet, no further update is
+ * queued because the queued one will read all of the changes when it runs, so the JavaFX event queue never holds more
+ * than one sensor update.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorValueStore
+ * @since 1.0
+ */
+public class SensorGuiUpdater {
+    private final SensorValueStore sensorValueStore;
+    private final int consumerId;
+    private final Runnable applyUpdate;
+    private final SensorValueSnapshot snapshot;
+    private boolean updateQueued;
+
+    public SensorGuiUpdater(SensorValueStore sensorValueStore) {
+        this.sensorValueStore = sensorValueStore;
+        this.consumerId = sensorValueStore.addConsumer();
+        this.applyUpdate = () -> apply();
+        this.snapshot = new SensorValueSnapshot();
+        this.updateQueued = false;
+    }
+
+    /**
+     * Queue a GUI update if any sensor has changed since the last one. Called on the sensor poll thread at the end of
+     * each poll. Does nothing if an update is already queued.
+     *
+     * @since 1.0
+     */
+    public synchronized void publish() {
+        if (!updateQueued && sensorValueStore.hasChanges(consumerId)) {
+            updateQueued = true;
+            Platform.runLater(applyUpdate);
+        }
+    }
+
+    /**
+     * Queue a GUI update of every sensor, used to bring the GUI up to date after it has not been updated for a while
+     *
+     * @since 1.0
+     */
+    public void publishAll() {
+        sensorValueStore.markAllChanged(consumerId);
+        publish();
+    }
+
+    private void apply() {
+        synchronized (this) {
+            updateQueued = false;
+        }
+
+        // The gauges and their listeners are updated after the store has been released, so that they never hold up
+        // the sensor poll
+        sensorValueStore.readChanged(consumerId, snapshot);
+        for (int i = 0; i < snapshot.size(); i++) {
+            snapshot.getSensorData(i).setValue(snapshot.getValue(i));
+        }
+
+        snapshot.clear();
+    }
+}
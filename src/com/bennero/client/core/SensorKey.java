@@ -0,0 +1,80 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import com.bennero.common.Sensor;
+
+import java.util.Objects;
+
+/**
+ * SensorKey identifies a sensor by its name, type and hardware type. It is the key of the sensor data index in the
+ * sensor manager, and matches both the sensor data provided by the bootstrapper and the sensor GUIs loaded from a save
+ * (which store the sensor data name as their original name).
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorManager
+ * @since 1.0
+ */
+public class SensorKey {
+    private final String name;
+    private final byte type;
+    private final String hardwareType;
+    private final int hashCode;
+
+    public SensorKey(String name, byte type, String hardwareType) {
+        this.name = name;
+        this.type = type;
+        this.hardwareType = hardwareType;
+        this.hashCode = Objects.hash(name, type, hardwareType);
+    }
+
+    public static SensorKey of(SensorData sensorData) {
+        return new SensorKey(sensorData.getName(), sensorData.getType(), sensorData.getHardwareType());
+    }
+
+    public static SensorKey of(Sensor sensor) {
+        return new SensorKey(sensor.getOriginalName(), sensor.getType(), sensor.getHardwareType());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof SensorKey)) {
+            return false;
+        }
+
+        SensorKey other = (SensorKey) o;
+        return type == other.type && Objects.equals(name, other.name) &&
+                Objects.equals(hardwareType, other.hardwareType);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -24,9 +24,15 @@
 package com.bennero.client.core;
 
 import com.bennero.client.Version;
-import com.bennero.client.bootstrapper.Native;
+import com.bennero.client.bootstrapper.NativeSensorSource;
 import com.bennero.client.bootstrapper.SensorRequest;
+import com.bennero.client.config.SaveManager;
+import com.bennero.client.config.SensorCatalogCache;
 import com.bennero.client.network.NetworkClient;
+import com.bennero.client.network.SensorValueBatch;
+import com.bennero.client.sources.SensorSource;
+import com.bennero.client.sources.SyntheticSensorSource;
+import com.bennero.common.PageData;
 import com.bennero.common.Sensor;
 import com.bennero.common.SensorType;
 import com.bennero.common.Skin;
@@ -36,8 +42,20 @@ import javafx.application.Platform;
 import javafx.scene.control.Alert;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.bennero.common.Constants.*;
 
@@ -53,11 +71,47 @@ import static com.bennero.common.Constants.*;
  */
 public class SensorManager {
     private static final String LOGGER_TAG = SensorManager.class.getSimpleName();
+    private static final String POLL_THREAD_NAME = "SensorPoller";
+
+    // Source channel IDs are a single byte on the network
+    private static final int NUM_CHANNEL_IDS = 256;
+
+    // Number of polls between each log of the poll timing metrics
+    private static final int POLL_METRICS_LOG_INTERVAL = 100;
 
     private static SensorManager instance = null;
     private static byte sensorGuiId = 0;
 
     private List<SensorData> sensorList;
+    private Map<SensorKey, SensorData> sensorIndex;
+    private Set<SensorKey> unconfirmedCachedSensors;
+    private List<SensorData> pendingSensorList;
+    private BitSet usedChannelIds;
+    private boolean sendingSourceChannels;
+    private SensorValueBatch pendingSensorValues;
+    // Sensor GUI IDs and source channel IDs overlap, so values sent in each mode are filtered separately
+    private SensorValueFilter sensorGuiValueFilter;
+    private SensorValueFilter channelValueFilter;
+    private SensorPollScheduler pollScheduler;
+    private volatile int[] activeSensorIds;
+    private volatile boolean activeSensorsChanged;
+    private SensorSource sensorSource;
+    private SyntheticSensorSource syntheticSensorSource;
+    private boolean pollIntervalLocked;
+    private SensorPollMetrics pollMetrics;
+    private SensorValueStore sensorValueStore;
+    private SensorGuiUpdater guiUpdater;
+    private int networkConsumerId;
+    private SensorValueSnapshot networkSnapshot;
+    private ScheduledExecutorService pollExecutor;
+    private ScheduledFuture<?> nextPoll;
+    private volatile int pollIntervalMs;
+    private long nextPollNanos;
+
+    // Deadline of the last poll, the next deadline is always this plus the current interval. Only used on the poll
+    // thread.
+    private long lastPollNanos;
+    private volatile boolean guiUpdatesEnabled;
 
     private List<SensorRequest> debugSensors;
     private boolean usingDebugSensors;
@@ -65,6 +119,25 @@ public class SensorManager {
 
     private SensorManager() {
         sensorList = new ArrayList<>();
+
+        // Sensor data can be added by the bootstrapper from any thread
+        sensorIndex = new ConcurrentHashMap<>();
+        unconfirmedCachedSensors = ConcurrentHashMap.newKeySet();
+        pendingSensorList = new ArrayList<>();
+        usedChannelIds = new BitSet(NUM_CHANNEL_IDS);
+        pendingSensorValues = new SensorValueBatch();
+        sensorGuiValueFilter = new SensorValueFilter();
+        channelValueFilter = new SensorValueFilter();
+        pollMetrics = new SensorPollMetrics();
+        sensorValueStore = new SensorValueStore();
+        guiUpdater = new SensorGuiUpdater(sensorValueStore);
+        networkConsumerId = sensorValueStore.addConsumer();
+        networkSnapshot = new SensorValueSnapshot();
+        guiUpdatesEnabled = false;
+        pollIntervalMs = SENSOR_POLL_RATE_MS;
+        pollScheduler = new SensorPollScheduler(pollIntervalMs);
+        activeSensorIds = new int[0];
+        activeSensorsChanged = true;
     }
 
     public static SensorManager getInstance() {
@@ -81,28 +154,171 @@ public class SensorManager {
 
     public void clearSensorList() {
         sensorList.clear();
+        sensorIndex.clear();
     }
 
-    public void addSensorData(SensorData sensorData) {
-        final String name = sensorData.getName();
+    /**
+     * Add a sensor discovered by the sensor source. If the sensor was loaded from the catalog cache, the cached sensor
+     * is confirmed instead of adding a second one.
+     *
+     * @param sensorData The discovered sensor
+     * @return The sensor data that values of the sensor should be set on
+     * @since 1.0
+     */
+    public SensorData addSensorData(SensorData sensorData) {
+        final SensorKey key = SensorKey.of(sensorData);
 
-        boolean exists = false;
         // Try to identify if the sensor already exists before adding it
-        for (int i = 0; i < sensorList.size() & !exists; i++) {
-            SensorData existingSensor = sensorList.get(i);
-            if (compareSensorData(existingSensor, sensorData)) {
-                Logger.log(LogLevel.WARNING, LOGGER_TAG, "Failed to add sensor because it already exists");
-                exists = true;
+        final SensorData existing = sensorIndex.putIfAbsent(key, sensorData);
+        if (existing == null) {
+            sensorValueStore.addSensor(sensorData);
+            queueSensorListAdd(sensorData);
+            return sensorData;
+        } else if (unconfirmedCachedSensors.remove(key)) {
+            return confirmCachedSensor(key, existing, sensorData);
+        }
+
+        Logger.log(LogLevel.WARNING, LOGGER_TAG, "Failed to add sensor because it already exists");
+        return existing;
+    }
+
+    /**
+     * Add the sensors from the catalog cache, so that a save can be loaded against them before the sensor source has
+     * enumerated the hardware. Cached sensors are unconfirmed until the sensor source discovers them.
+     *
+     * @since 1.0
+     */
+    public void addCachedSensors() {
+        List<SensorData> cachedSensors = SensorCatalogCache.load();
+        for (SensorData sensorData : cachedSensors) {
+            final SensorKey key = SensorKey.of(sensorData);
+            if (sensorIndex.putIfAbsent(key, sensorData) == null) {
+                unconfirmedCachedSensors.add(key);
+                sensorValueStore.addSensor(sensorData);
+                queueSensorListAdd(sensorData);
             }
         }
 
-        if (!exists) {
-            Platform.runLater(() ->
-            {
-                Logger.log(LogLevel.INFO, LOGGER_TAG, "Adding Sensor Data: " + name + ", Hardware Type: " + sensorData.getHardwareType());
-                sensorList.add(sensorData);
-            });
+        Logger.log(LogLevel.INFO, LOGGER_TAG, "Added " + unconfirmedCachedSensors.size() +
+                " sensors from the catalog cache");
+    }
+
+    /**
+     * Reconcile a cached sensor with the same sensor discovered by the sensor source. If the sensor source gave it a
+     * different ID or max (e.g. hardware was added), the cached sensor is replaced and its sensor GUIs are moved over.
+     *
+     * @param key        Key of the sensor
+     * @param cached     The sensor loaded from the cache
+     * @param discovered The sensor discovered by the sensor source
+     * @return The sensor data that values of the sensor should be set on
+     * @since 1.0
+     */
+    private synchronized SensorData confirmCachedSensor(SensorKey key, SensorData cached, SensorData discovered) {
+        if (cached.getId() == discovered.getId() && cached.getMax() == discovered.getMax()) {
+            return cached;
+        }
+
+        for (Sensor sensor : cached.getSensorList()) {
+            discovered.addSensor(sensor);
+        }
+
+        cached.removeAllSensors();
+        sensorIndex.put(key, discovered);
+        sensorValueStore.addSensor(discovered);
+        updateSourceChannel(cached);
+        updateSourceChannel(discovered);
+        Platform.runLater(() ->
+        {
+            final int index = sensorList.indexOf(cached);
+            if (index >= 0) {
+                sensorList.set(index, discovered);
+            } else {
+                sensorList.add(discovered);
+            }
+        });
+
+        updateActiveSensors();
+        return discovered;
+    }
+
+    /**
+     * Remove the cached sensors that the sensor source did not discover, as the hardware is no longer there, and
+     * write the discovered sensors to the catalog cache
+     *
+     * @since 1.0
+     */
+    private void finishSensorEnumeration() {
+        int numRemoved = 0;
+        for (SensorKey key : unconfirmedCachedSensors) {
+            final SensorData staleSensor = sensorIndex.remove(key);
+            if (staleSensor != null) {
+                staleSensor.removeAllSensors();
+                updateSourceChannel(staleSensor);
+                Platform.runLater(() -> sensorList.remove(staleSensor));
+                numRemoved++;
+            }
+        }
+
+        unconfirmedCachedSensors.clear();
+        updateActiveSensors();
+        registerSavedSensors();
+        Logger.log(LogLevel.INFO, LOGGER_TAG, "Sensor enumeration finished with " + sensorIndex.size() +
+                " sensors, " + numRemoved + " cached sensors no longer available");
+
+        // Fake sensors are not cached as they would be shown as real sensors on the next launch
+        if (sensorSource != null && sensorSource != syntheticSensorSource) {
+            SensorCatalogCache.save(new ArrayList<>(sensorIndex.values()));
+        }
+    }
+
+    /**
+     * Register the sensor GUIs of the loaded save that could not be registered when it was loaded, because their
+     * sensors had not been discovered yet (e.g. the save was loaded before enumeration finished on the first launch)
+     *
+     * @since 1.0
+     */
+    private void registerSavedSensors() {
+        Platform.runLater(() ->
+        {
+            SaveManager saveManager = SaveManager.getInstance();
+            if (!saveManager.containsSaveData()) {
+                return;
+            }
+
+            for (PageData pageData : saveManager.getSaveData().getPageDataList()) {
+                for (Sensor sensor : pageData.getSensorList()) {
+                    SensorData sensorData = sensorIndex.get(SensorKey.of(sensor));
+                    if (sensorData != null && !sensorData.getSensorList().contains(sensor)) {
+                        registerExistingSensor(sensor);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Queue a sensor to be added to the sensor list on the JavaFX thread. Sensors added while the JavaFX thread is
+     * busy are added together in one runnable, rather than one runnable per sensor during enumeration.
+     *
+     * @param sensorData The sensor to add
+     * @since 1.0
+     */
+    private void queueSensorListAdd(SensorData sensorData) {
+        synchronized (pendingSensorList) {
+            pendingSensorList.add(sensorData);
+            if (pendingSensorList.size() > 1) {
+                return;
+            }
         }
+
+        Platform.runLater(() ->
+        {
+            synchronized (pendingSensorList) {
+                sensorList.addAll(pendingSensorList);
+                Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Added " + pendingSensorList.size() + " sensors");
+                pendingSensorList.clear();
+            }
+        });
     }
 
     public boolean compareSensorData(SensorData lhs, SensorData rhs) {
@@ -143,75 +359,237 @@ public class SensorManager {
                 sensorData.getName(), false, 10000, 1, 1);
     }
 
-    public void registerSensor(Sensor sensor, SensorData sensorData) {
-        sensor.setValueChangeListener((observableValue, aFloat, t1) -> NetworkClient.getInstance().
-                writeSensorValueMessage(sensor.getUniqueId(), t1));
+    public synchronized void registerSensor(Sensor sensor, SensorData sensorData) {
+        // Register with the sensor data held in the index, in case a cached sensor has since been replaced
+        final SensorData indexedSensorData = sensorIndex.get(SensorKey.of(sensorData));
+        if (indexedSensorData != null) {
+            sensorData = indexedSensorData;
+        }
+
         sensorData.addSensor(sensor);
+        updateActiveSensors();
+        updateSourceChannel(sensorData);
         Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Registered Sensor: [ID: " + sensor.getUniqueId() + "], [SENSOR_DATA_ID: " + sensorData.getId() + "], [NAME: " + sensor.getTitle() + "]");
     }
 
-    public void registerExistingSensor(Sensor sensor) {
-        boolean foundSensorData = false;
-
-        // Locate the sensor data in the list
-        List<SensorData> sensorList = getSensorList();
-        for (int i = 0; !foundSensorData && i < sensorList.size(); i++) {
-            if (compareSensorGuiToData(sensorList.get(i), sensor)) {
-                registerSensor(sensor, sensorList.get(i));
-                if (sensorGuiId < sensor.getUniqueId()) {
-                    sensorGuiId = (byte)(sensor.getUniqueId() + 1);
+    public synchronized void unregisterSensor(Sensor sensor) {
+        SensorData sensorData = sensorIndex.get(SensorKey.of(sensor));
+        if (sensorData != null) {
+            sensorData.removeSensor(sensor);
+
+            // The sensor GUI is gone, so it must no longer be sent keep-alives
+            sensorGuiValueFilter.forget(sensor.getUniqueId());
+            updateActiveSensors();
+            updateSourceChannel(sensorData);
+            Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Unregistered Sensor: [ID: " + sensor.getUniqueId() + "], [SENSOR_DATA_ID: " + sensorData.getId() + "], [NAME: " + sensor.getTitle() + "]");
+        }
+    }
+
+    /**
+     * Unregister the sensor GUIs of every sensor, used before a different save is loaded so that the sensors of the
+     * previous save are no longer read
+     *
+     * @since 1.0
+     */
+    public void unregisterAllSensors() {
+        for (SensorData sensorData : sensorIndex.values()) {
+            for (Sensor sensor : sensorData.getSensorList()) {
+                sensorGuiValueFilter.forget(sensor.getUniqueId());
+            }
+
+            sensorData.removeAllSensors();
+            updateSourceChannel(sensorData);
+        }
+
+        updateActiveSensors();
+    }
+
+    /**
+     * Give an active sensor a source channel, or take the source channel of a sensor that is no longer active (or no
+     * longer in the index), and write the change to the hardware monitor. A sensor keeps its channel while its sensor
+     * GUIs change, only the bindings of the channel are re-written.
+     *
+     * @param sensorData The sensor whose sensor GUIs have changed
+     * @since 1.0
+     */
+    private synchronized void updateSourceChannel(SensorData sensorData) {
+        int channelId = sensorData.getChannelId();
+        if (sensorData.isActive() && sensorIndex.get(SensorKey.of(sensorData)) == sensorData) {
+            if (channelId == SensorData.NO_CHANNEL) {
+                channelId = usedChannelIds.nextClearBit(0);
+                if (channelId >= NUM_CHANNEL_IDS) {
+                    Logger.log(LogLevel.ERROR, LOGGER_TAG, "No source channel available for " + sensorData.getName());
+                    return;
                 }
-                foundSensorData = true;
+
+                usedChannelIds.set(channelId);
+                sensorData.setChannelId(channelId);
+
+                // The channel may have belonged to another sensor, whose last sent value must not be used as the
+                // deadband baseline or resent as a keep-alive
+                channelValueFilter.forget(channelId);
             }
+
+            writeSourceChannel(channelId, sensorData.getSensorList());
+        } else if (channelId != SensorData.NO_CHANNEL) {
+            usedChannelIds.clear(channelId);
+            sensorData.setChannelId(SensorData.NO_CHANNEL);
+            channelValueFilter.forget(channelId);
+            writeSourceChannel(channelId, Collections.emptyList());
         }
     }
 
-    public boolean isAvailable(SensorData sensorData) {
-        boolean foundSensor = false;
-        List<SensorData> sensorList = getSensorList();
-        // Check to see if the sensor exists in the list of found sensors
-        for (int i = 0; !foundSensor && i < sensorList.size(); i++) {
-            if (compareSensorData(sensorList.get(i), sensorData)) {
-                foundSensor = true;
+    /**
+     * Write the bindings of every source channel to the hardware monitor, used once a layout has been sent on a new
+     * connection
+     *
+     * @since 1.0
+     */
+    public synchronized void writeSourceChannels() {
+        for (SensorData sensorData : sensorIndex.values()) {
+            if (sensorData.getChannelId() != SensorData.NO_CHANNEL) {
+                writeSourceChannel(sensorData.getChannelId(), sensorData.getSensorList());
             }
         }
+    }
+
+    private void writeSourceChannel(int channelId, List<Sensor> sensors) {
+        NetworkClient networkClient = NetworkClient.getInstance();
+        if (networkClient.isConnected() && networkClient.isSourceChannelsEnabled()) {
+            networkClient.writeSourceChannelMessage(channelId, sensors);
+        }
+    }
 
-        return foundSensor;
+    public int[] getActiveSensorIds() {
+        return activeSensorIds;
     }
 
-    public boolean isAvailable(Sensor sensor) {
-        // Locate the sensor data
-        boolean foundSensorData = false;
-
-        List<SensorData> sensorList = getSensorList();
-        // Check to see if the sensor exists in the list of found sensors
-        for (int i = 0; !foundSensorData && i < sensorList.size(); i++) {
-            if (compareSensorGuiToData(sensorList.get(i), sensor)) {
-                foundSensorData = true;
+    /**
+     * Rebuild the set of active sensors (sensors placed on a page) after a sensor GUI has been registered or
+     * unregistered. The set is passed to the sensor source and the poll scheduler on the next poll.
+     *
+     * @since 1.0
+     */
+    private synchronized void updateActiveSensors() {
+        int numActive = 0;
+        int[] ids = new int[sensorIndex.size()];
+        for (SensorData sensorData : sensorIndex.values()) {
+            if (sensorData.isActive() && numActive < ids.length) {
+                ids[numActive++] = sensorData.getId();
             }
         }
 
-        return foundSensorData;
+        ids = Arrays.copyOf(ids, numActive);
+        Arrays.sort(ids);
+        if (!Arrays.equals(ids, activeSensorIds)) {
+            activeSensorIds = ids;
+            pollScheduler.setActiveSensors(ids);
+            activeSensorsChanged = true;
+        }
+    }
+
+    /**
+     * Pass the active sensors to the sensor source if they have changed, so that it only reads the sensors that are
+     * placed on a page. Sources that cannot do this read every sensor, and the values of inactive sensors are
+     * discarded.
+     *
+     * @since 1.0
+     */
+    private void applyActiveSensors() {
+        if (activeSensorsChanged) {
+            activeSensorsChanged = false;
+            sensorSource.setActiveSensors(activeSensorIds);
+            Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Subscribed to " + activeSensorIds.length + " active sensors");
+        }
     }
 
-    public void addNativeSensors() {
+    /**
+     * Open the first sensor source that is supported on this system. Sources are listed in module-info.java and the
+     * META-INF/services/com.bennero.client.sources.SensorSource file, with the bootstrappers native interface first.
+     * If the sources cannot be loaded, the bootstrappers native interface is opened directly.
+     *
+     * @return The opened sensor source, or null if no source is supported
+     * @since 1.0
+     */
+    private SensorSource openSensorSource() {
         try {
-            Native.addSensors();
-        } catch (UnsatisfiedLinkError e) {
+            for (SensorSource source : ServiceLoader.load(SensorSource.class)) {
+                if (source.open()) {
+                    Logger.log(LogLevel.INFO, LOGGER_TAG, "Using sensor source: " + source.getName());
+                    return source;
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, LOGGER_TAG, "Failed to load sensor sources, falling back to the native " +
+                    "interface");
+
+            SensorSource source = new NativeSensorSource();
+            if (source.open()) {
+                Logger.log(LogLevel.INFO, LOGGER_TAG, "Using sensor source: " + source.getName());
+                return source;
+            }
+        }
+
+        return null;
+    }
+
+    public void registerExistingSensor(Sensor sensor) {
+        // Locate the sensor data in the index
+        SensorData sensorData = sensorIndex.get(SensorKey.of(sensor));
+        if (sensorData != null) {
+            registerSensor(sensor, sensorData);
+            if (sensorGuiId < sensor.getUniqueId()) {
+                sensorGuiId = (byte)(sensor.getUniqueId() + 1);
+            }
+        }
+    }
+
+    public boolean isAvailable(SensorData sensorData) {
+        // Check to see if the sensor exists in the index of found sensors
+        return sensorIndex.containsKey(SensorKey.of(sensorData));
+    }
+
+    public boolean isAvailable(Sensor sensor) {
+        // Check to see if the sensor data of the sensor GUI exists in the index of found sensors
+        return sensorIndex.containsKey(SensorKey.of(sensor));
+    }
+
+    /**
+     * Enumerate the sensors of the sensor source. Runs on the sensor poll thread before the first poll, so the GUI
+     * is not held up by enumerating the hardware.
+     *
+     * @return True if there are sensors to poll
+     * @since 1.0
+     */
+    private boolean addNativeSensors() {
+        if (syntheticSensorSource != null && syntheticSensorSource.open()) {
+            Logger.log(LogLevel.INFO, LOGGER_TAG, "Using sensor source: " + syntheticSensorSource.getName());
+            sensorSource = syntheticSensorSource;
+            finishSensorEnumeration();
+            return true;
+        }
+
+        sensorSource = openSensorSource();
+        if (sensorSource == null) {
             if (Version.BOOTSTRAPPER_LAUNCH_REQUIRED) {
-                Logger.log(LogLevel.ERROR, LOGGER_TAG, "No NativeAddSensors method. System not launched with the bootstrapper");
-                e.printStackTrace();
+                Logger.log(LogLevel.ERROR, LOGGER_TAG, "No sensor source available. System not launched with the bootstrapper");
 
-                Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to retrieve sensor data");
-                alert.setTitle("Hardware Monitor Error");
-                alert.setHeaderText("Failed to retrieve sensor data");
-                alert.setContentText("There was an error loading the sensor data due to a communication problem with " +
-                        "the native interface provided by the bootstrapper application. Do not attempt to run the JAR " +
-                        "file without the bootstrapper. If you see this error for any other reason please contact " +
-                        "Bennero support (ERROR CODE: " + EXIT_ERROR_CODE_NATIVE_GET_SENSOR_FAILED + ")");
-                alert.showAndWait();
+                Platform.runLater(() ->
+                {
+                    Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to retrieve sensor data");
+                    alert.setTitle("Hardware Monitor Error");
+                    alert.setHeaderText("Failed to retrieve sensor data");
+                    alert.setContentText("There was an error loading the sensor data due to a communication problem " +
+                            "with the native interface provided by the bootstrapper application. Do not attempt to " +
+                            "run the JAR file without the bootstrapper. If you see this error for any other reason " +
+                            "please contact Bennero support (ERROR CODE: " + EXIT_ERROR_CODE_NATIVE_GET_SENSOR_FAILED +
+                            ")");
+                    alert.showAndWait();
 
-                System.exit(EXIT_ERROR_CODE_NATIVE_GET_SENSOR_FAILED);
+                    System.exit(EXIT_ERROR_CODE_NATIVE_GET_SENSOR_FAILED);
+                });
+                return false;
             } else {
                 usingDebugSensors = true;
 
@@ -220,33 +598,262 @@ public class SensorManager {
                 addDebugSensors();
             }
         }
+
+        finishSensorEnumeration();
+        return true;
     }
 
     public void startSensorUpdateThread() {
-        Thread thread = new Thread(() ->
+        // Sensors are polled on their own thread so that a slow hardware read never stalls the GUI
+        pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, POLL_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollExecutor.execute(() ->
+        {
+            // Add the sensors of the sensor source before the first poll
+            if (!addNativeSensors()) {
+                return;
+            }
+
+            lastPollNanos = System.nanoTime();
+            nextPollNanos = lastPollNanos + TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+            scheduleNextPoll();
+        });
+
+        if (!Version.BOOTSTRAPPER_LAUNCH_REQUIRED) {
+            Alert alert = new Alert(Alert.AlertType.WARNING, "No bootstrapper enabled");
+            alert.setTitle("Hardware Monitor Warning");
+            alert.setHeaderText("No bootstrapper enabled");
+            alert.setContentText("The bootstrapper is disabled, meaning that the application will not poll for " +
+                    "hardware data and therefor not update any sensors with real data. This warning is for " +
+                    "developers only, if you are seeing this as a user, somebody built the software wrong! Set " +
+                    "BOOTSTRAPPER_LAUNCH_REQUIRED to false");
+            alert.showAndWait();
+        }
+    }
+
+    /**
+     * Called for every new sensor value on the sensor poll thread. The value is written to the sensor value store, and
+     * the consumers of the store (the GUI and the network client) pick up the changed values at the end of the poll.
+     *
+     * @param sensorData The sensor that has a new value
+     * @param value      The new value
+     * @since 1.0
+     */
+    public void onSensorValue(SensorData sensorData, float value) {
+        // Sensors that are not placed on a page are not displayed or sent
+        if (!sensorData.isActive()) {
+            return;
+        }
+
+        final long timeMs = System.currentTimeMillis();
+
+        // Values of sensors that are waiting on a longer poll interval are not stored, so they are not sent or drawn
+        if (pollScheduler.sample(sensorData, value, timeMs)) {
+            sensorValueStore.put(sensorData.getId(), value, timeMs);
+        }
+    }
+
+    public SensorValueStore getSensorValueStore() {
+        return sensorValueStore;
+    }
+
+    /**
+     * Enable or disable updating the sensor GUIs. While the window is hidden there is nothing to see, so the sensor
+     * values are not passed to the JavaFX thread at all. When re-enabled, the GUIs are brought up to date with the
+     * latest values.
+     *
+     * @param guiUpdatesEnabled True if the sensor GUIs should be updated
+     * @since 1.0
+     */
+    public void setGuiUpdatesEnabled(boolean guiUpdatesEnabled) {
+        this.guiUpdatesEnabled = guiUpdatesEnabled;
+
+        if (guiUpdatesEnabled) {
+            guiUpdater.publishAll();
+        }
+    }
+
+    /**
+     * Set the interval that sensors are polled at. The change applies from the next poll without restarting the poll
+     * thread. If a poll is currently waiting on the old interval, it is re-timed from the start of the previous poll so
+     * that shortening the interval takes effect immediately.
+     *
+     * @param pollIntervalMs Time between the start of each sensor poll in milliseconds
+     * @since 1.0
+     */
+    public void setPollInterval(int pollIntervalMs) {
+        if (pollIntervalLocked) {
+            Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sensor poll interval is set by a launch parameter, ignoring " +
+                    pollIntervalMs + "ms");
+            return;
+        }
+
+        applyPollInterval(pollIntervalMs);
+    }
+
+    /**
+     * Generate synthetic sensors instead of reading the hardware, for scale testing the sensor pipeline. Must be
+     * called before the sensors are added. Synthetic sensors are polled whether or not a hardware monitor is
+     * connected.
+     *
+     * @param numSensors     Number of synthetic sensors to generate
+     * @param pollIntervalMs Poll interval to use instead of the interval in the save, or zero to use the save
+     * @since 1.0
+     */
+    public void useSyntheticSensors(int numSensors, int pollIntervalMs) {
+        syntheticSensorSource = new SyntheticSensorSource(numSensors);
+        if (pollIntervalMs > 0) {
+            applyPollInterval(pollIntervalMs);
+            pollIntervalLocked = true;
+        }
+    }
+
+    public boolean isUsingSyntheticSensors() {
+        return syntheticSensorSource != null;
+    }
+
+    private void applyPollInterval(int pollIntervalMs) {
+        if (pollIntervalMs <= 0) {
+            Logger.log(LogLevel.WARNING, LOGGER_TAG, "Invalid sensor poll interval " + pollIntervalMs +
+                    "ms, using the default of " + SENSOR_POLL_RATE_MS + "ms");
+            pollIntervalMs = SENSOR_POLL_RATE_MS;
+        }
+
+        if (this.pollIntervalMs == pollIntervalMs) {
+            return;
+        }
+
+        this.pollIntervalMs = pollIntervalMs;
+        pollScheduler.setPollInterval(pollIntervalMs);
+        Logger.log(LogLevel.INFO, LOGGER_TAG, "Sensor poll interval set to " + pollIntervalMs + "ms");
+
+        if (pollExecutor != null && !pollExecutor.isShutdown()) {
+            // Re-time the waiting poll on the poll thread so that it does not race with the poll rescheduling itself.
+            // The deadline is worked out from the last poll with the latest interval, so that several changes before
+            // the next poll leave it one latest interval after the last poll.
+            pollExecutor.execute(() ->
+            {
+                if (nextPoll != null && nextPoll.cancel(false)) {
+                    nextPollNanos = lastPollNanos + TimeUnit.MILLISECONDS.toNanos(this.pollIntervalMs);
+                    scheduleNextPoll();
+                }
+            });
+        }
+    }
+
+    public int getPollInterval() {
+        return pollIntervalMs;
+    }
+
+    public SensorPollMetrics getPollMetrics() {
+        return pollMetrics;
+    }
+
+    public void setSensorDeadbands(Map<Byte, SensorDeadband> sensorDeadbands) {
+        sensorGuiValueFilter.setDeadbands(sensorDeadbands);
+        channelValueFilter.setDeadbands(sensorDeadbands);
+        pollScheduler.setDeadbands(sensorDeadbands);
+    }
+
+    public void setSensorPollRates(Map<Byte, SensorPollRate> sensorPollRates) {
+        pollScheduler.setPollRates(sensorPollRates);
+    }
+
+    /**
+     * Schedule the next poll at a fixed rate. The deadline advances by the interval from the previous deadline rather
+     * than from the end of the poll, so that the time spent polling does not drift the poll rate. If a poll overran
+     * one or more deadlines, the missed polls are skipped instead of being run back to back.
+     *
+     * @since 1.0
+     */
+    private void scheduleNextPoll() {
+        final long now = System.nanoTime();
+        final long intervalNanos = TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+        if (nextPollNanos - now < 0) {
+            nextPollNanos += ((now - nextPollNanos) / intervalNanos + 1) * intervalNanos;
+        }
+
+        nextPoll = pollExecutor.schedule(() ->
         {
-            try {
-                while (true) {
-                    Thread.sleep(SENSOR_POLL_RATE_MS);
-
-                    Platform.runLater(() ->
-                    {
-                        if (usingDebugSensors) {
-                            updateDebugSensors();
-                        } else {
-                            if (NetworkClient.getInstance().isConnected()) {
-                                Native.updateSensors();
-                            }
-                        }
-                    });
+            pollSensors();
+
+            if (!pollExecutor.isShutdown()) {
+                lastPollNanos = nextPollNanos;
+                nextPollNanos += TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+                scheduleNextPoll();
+            }
+        }, nextPollNanos - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void pollSensors() {
+        final long pollStartNanos = System.nanoTime();
+        if (!readSensors()) {
+            return;
+        }
+
+        // A failure to send or display the values only affects this poll, the sensor source is still working so
+        // polling continues
+        try {
+            final long nativeEndNanos = System.nanoTime();
+            // The GUI is updated once for the whole poll
+            if (guiUpdatesEnabled) {
+                guiUpdater.publish();
+            }
+
+            flushSensorValues();
+            pollMetrics.recordPoll(nativeEndNanos - pollStartNanos, System.nanoTime() - nativeEndNanos);
+
+            if (pollMetrics.getPollCount() % POLL_METRICS_LOG_INTERVAL == 0) {
+                Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sensor poll timing: [NATIVE AVG/MAX: " +
+                        pollMetrics.getAverageNativeNanos() / 1000 + "/" + pollMetrics.getMaxNativeNanos() / 1000 +
+                        "us], [DISPATCH AVG/MAX: " + pollMetrics.getAverageDispatchNanos() / 1000 + "/" +
+                        pollMetrics.getMaxDispatchNanos() / 1000 + "us]");
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, LOGGER_TAG, "Failed to dispatch sensor values: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read the latest values from the sensor source. If the sensor source fails, polling is stopped as the next poll
+     * would fail in the same way.
+     *
+     * @return False if the sensor source failed and polling has been stopped
+     * @since 1.0
+     */
+    private boolean readSensors() {
+        try {
+            if (usingDebugSensors) {
+                updateDebugSensors();
+            } else {
+                // Skip reading the hardware when every sensor is waiting on a longer poll interval
+                final boolean pollRequired = NetworkClient.getInstance().isConnected() ||
+                        sensorSource == syntheticSensorSource;
+                if (pollRequired && pollScheduler.isAnyDue(System.currentTimeMillis())) {
+                    applyActiveSensors();
+                    sensorSource.updateSensors();
                 }
-            } catch (InterruptedException e) {
+            }
+
+            return true;
+        } catch (Exception | UnsatisfiedLinkError e) {
+            // Stop polling as the sensor source is not working, the next poll would fail in the same way
+            pollExecutor.shutdown();
+            if (sensorSource != null) {
+                sensorSource.close();
+            }
+
+            if (Version.BOOTSTRAPPER_LAUNCH_REQUIRED) {
+                Logger.log(LogLevel.ERROR, LOGGER_TAG, "No NativeAddSensors method. System not launched with the bootstrapper");
                 e.printStackTrace();
-            } catch (Exception e) {
-                if (Version.BOOTSTRAPPER_LAUNCH_REQUIRED) {
-                    Logger.log(LogLevel.ERROR, LOGGER_TAG, "No NativeAddSensors method. System not launched with the bootstrapper");
-                    e.printStackTrace();
 
+                Platform.runLater(() ->
+                {
                     Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to update sensors");
                     alert.setTitle("Hardware Monitor Error");
                     alert.setHeaderText("Failed to update sensors");
@@ -255,34 +862,87 @@ public class SensorManager {
                             EXIT_ERROR_CODE_NATIVE_SENSOR_UPDATE_FAILED + ")");
                     alert.showAndWait();
                     System.exit(EXIT_ERROR_CODE_NATIVE_SENSOR_UPDATE_FAILED);
-                } else {
-                    e.printStackTrace();
-                    Logger.log(LogLevel.ERROR, LOGGER_TAG, "Failed to update sensors. Native interface not working correctly");
-                }
+                });
+            } else {
+                e.printStackTrace();
+                Logger.log(LogLevel.ERROR, LOGGER_TAG, "Failed to update sensors. Sensor source not working correctly");
             }
-        });
 
-        thread.start();
+            return false;
+        }
+    }
 
-        if (!Version.BOOTSTRAPPER_LAUNCH_REQUIRED) {
-            Alert alert = new Alert(Alert.AlertType.WARNING, "No bootstrapper enabled");
-            alert.setTitle("Hardware Monitor Warning");
-            alert.setHeaderText("No bootstrapper enabled");
-            alert.setContentText("The bootstrapper is disabled, meaning that the application will not poll for " +
-                    "hardware data and therefor not update any sensors with real data. This warning is for " +
-                    "developers only, if you are seeing this as a user, somebody built the software wrong! Set " +
-                    "BOOTSTRAPPER_LAUNCH_REQUIRED to false");
-            alert.showAndWait();
+    private void queueSensorValue(SensorData sensorData, float value, long timestampMs) {
+        // One value is sent for the source channel of the sensor, the hardware monitor shows it on every sensor GUI
+        // bound to the channel
+        if (sendingSourceChannels) {
+            final int channelId = sensorData.getChannelId();
+            if (channelId != SensorData.NO_CHANNEL &&
+                    channelValueFilter.accept(channelId, sensorData.getType(), value, timestampMs)) {
+                pendingSensorValues.put(channelId, value);
+            }
+            return;
+        }
+
+        // Values are sent for every sensor GUI showing the sensor, unless the change is within the deadband of the
+        // sensor type
+        List<Sensor> sensorGuis = sensorData.getSensorList();
+        for (int i = 0; i < sensorGuis.size(); i++) {
+            final int id = sensorGuis.get(i).getUniqueId();
+            if (sensorGuiValueFilter.accept(id, sensorData.getType(), value, timestampMs)) {
+                pendingSensorValues.put(id, value);
+            }
         }
     }
 
+    private void flushSensorValues() {
+        NetworkClient networkClient = NetworkClient.getInstance();
+        if (networkClient.isConnected()) {
+            final boolean sourceChannelsEnabled = networkClient.isSourceChannelsEnabled();
+            if (sourceChannelsEnabled != sendingSourceChannels) {
+                // What the filter of the other mode remembers was sent to a previous hardware monitor
+                getValueFilter(sourceChannelsEnabled).reset();
+                sendingSourceChannels = sourceChannelsEnabled;
+            }
+
+            sensorValueStore.readChanged(networkConsumerId, networkSnapshot);
+            for (int i = 0; i < networkSnapshot.size(); i++) {
+                queueSensorValue(networkSnapshot.getSensorData(i), networkSnapshot.getValue(i),
+                        networkSnapshot.getTimestampMs(i));
+            }
+
+            networkSnapshot.clear();
+            getValueFilter(sendingSourceChannels).addKeepAlives(pendingSensorValues, System.currentTimeMillis());
+            if (!pendingSensorValues.isEmpty()) {
+                networkClient.writeSensorValues(pendingSensorValues);
+            }
+        } else {
+            // Nothing was sent so every value must be sent, unfiltered, once connected
+            sensorGuiValueFilter.reset();
+            channelValueFilter.reset();
+            sensorValueStore.markAllChanged(networkConsumerId);
+        }
+
+        pendingSensorValues.clear();
+    }
+
+    private SensorValueFilter getValueFilter(boolean sourceChannels) {
+        return sourceChannels ? channelValueFilter : sensorGuiValueFilter;
+    }
+
     private void updateDebugSensors() {
         if(debugSensors == null || debugSensorRandom == null) {
             return;
         }
 
-        // Update all sensors with random values between there min and max
+        // Update all sensors that are due with random values between there min and max
+        final long timeMs = System.currentTimeMillis();
         for (SensorRequest sensorRequest : debugSensors) {
+            final SensorData sensorData = sensorRequest.getSensorData();
+            if (!sensorData.isActive() || !pollScheduler.isDue(sensorData, timeMs)) {
+                continue;
+            }
+
             float max = sensorRequest.getMax();
             float randomVal = debugSensorRandom.nextFloat() * max;
             sensorRequest.setValue(randomVal);
@@ -0,0 +1,84 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+/**
+ * SensorPollMetrics records how long sensor polls take. The time spent in the native (or debug) sensor update is kept
+ * separately from the time spent dispatching the new values to the GUI and the hardware monitor, so that the cost of
+ * reading the hardware can be seen on its own. Only written by the sensor poll thread.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorManager
+ * @since 1.0
+ */
+public class SensorPollMetrics {
+    private volatile long pollCount;
+    private volatile long lastNativeNanos;
+    private volatile long maxNativeNanos;
+    private volatile long totalNativeNanos;
+    private volatile long lastDispatchNanos;
+    private volatile long maxDispatchNanos;
+    private volatile long totalDispatchNanos;
+
+    public void recordPoll(long nativeNanos, long dispatchNanos) {
+        pollCount++;
+        lastNativeNanos = nativeNanos;
+        maxNativeNanos = Math.max(maxNativeNanos, nativeNanos);
+        totalNativeNanos += nativeNanos;
+        lastDispatchNanos = dispatchNanos;
+        maxDispatchNanos = Math.max(maxDispatchNanos, dispatchNanos);
+        totalDispatchNanos += dispatchNanos;
+    }
+
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    public long getLastNativeNanos() {
+        return lastNativeNanos;
+    }
+
+    public long getMaxNativeNanos() {
+        return maxNativeNanos;
+    }
+
+    public long getAverageNativeNanos() {
+        final long count = pollCount;
+        return count == 0 ? 0 : totalNativeNanos / count;
+    }
+
+    public long getLastDispatchNanos() {
+        return lastDispatchNanos;
+    }
+
+    public long getMaxDispatchNanos() {
+        return maxDispatchNanos;
+    }
+
+    public long getAverageDispatchNanos() {
+        final long count = pollCount;
+        return count == 0 ? 0 : totalDispatchNanos / count;
+    }
+}
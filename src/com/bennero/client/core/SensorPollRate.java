@@ -0,0 +1,85 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import com.bennero.common.SensorType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SensorPollRate defines how often the sensors of a type are sampled. A sensor is sampled at its min interval while its
+ * value is changing, and each sample that shows no significant change doubles its interval up to the max interval. An
+ * interval of zero means every poll. Poll rates are configured per sensor type and stored with the save.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorPollScheduler
+ * @since 1.0
+ */
+public class SensorPollRate {
+    public static final int EVERY_POLL = 0;
+
+    private int minIntervalMs;
+    private int maxIntervalMs;
+
+    public SensorPollRate(int minIntervalMs, int maxIntervalMs) {
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+    }
+
+    /**
+     * Create the poll rates used when a save does not specify any. Types that are not listed here, such as clocks and
+     * loads, are sampled on every poll.
+     *
+     * @return Map of sensor type to poll rate
+     * @since 1.0
+     */
+    public static Map<Byte, SensorPollRate> createDefaults() {
+        Map<Byte, SensorPollRate> pollRates = new HashMap<>();
+        pollRates.put(SensorType.TEMPERATURE, new SensorPollRate(EVERY_POLL, 4000));
+        pollRates.put(SensorType.FAN, new SensorPollRate(EVERY_POLL, 4000));
+        pollRates.put(SensorType.CONTROL, new SensorPollRate(EVERY_POLL, 4000));
+        pollRates.put(SensorType.LEVEL, new SensorPollRate(5000, 60000));
+        pollRates.put(SensorType.DATA, new SensorPollRate(5000, 60000));
+        pollRates.put(SensorType.SMALL_DATA, new SensorPollRate(5000, 60000));
+        return pollRates;
+    }
+
+    public int getMinIntervalMs() {
+        return minIntervalMs;
+    }
+
+    public void setMinIntervalMs(int minIntervalMs) {
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    public int getMaxIntervalMs() {
+        return maxIntervalMs;
+    }
+
+    public void setMaxIntervalMs(int maxIntervalMs) {
+        this.maxIntervalMs = maxIntervalMs;
+    }
+}
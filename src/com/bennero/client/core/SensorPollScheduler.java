@@ -0,0 +1,230 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SensorPollScheduler decides which sensors are due to be sampled on a poll, so that slowly changing sensors such as
+ * storage capacities are not read and sent at the same rate as clocks and loads. Each sensor has its own interval
+ * between the min and max interval of its type's poll rate. The interval adapts to how volatile the sensor is: it is
+ * reset to the min interval when a sample changes by more than the type's deadband, and doubled when it does not.
+ * State is kept per sensor data ID in primitive arrays so that scheduling does not allocate. Only used by the sensor
+ * poll thread, apart from setting the poll rates and deadbands.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorPollRate
+ * @since 1.0
+ */
+public class SensorPollScheduler {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final SensorPollRate EVERY_POLL = new SensorPollRate(SensorPollRate.EVERY_POLL,
+            SensorPollRate.EVERY_POLL);
+    private static final SensorDeadband NO_DEADBAND = new SensorDeadband(0.0f, 0.0f,
+            SensorDeadband.DEFAULT_MAX_SILENCE_MS);
+
+    private boolean[] active;
+    private boolean[] sampled;
+    private float[] lastValues;
+    private int[] intervalsMs;
+    private long[] nextDueTimesMs;
+    private volatile Map<Byte, SensorPollRate> pollRates;
+    private volatile Map<Byte, SensorDeadband> deadbands;
+    private volatile int pollIntervalMs;
+    private volatile boolean resetPending;
+    private volatile int[] pendingActiveSensorIds;
+
+    public SensorPollScheduler(int pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+        active = new boolean[INITIAL_CAPACITY];
+        sampled = new boolean[INITIAL_CAPACITY];
+        lastValues = new float[INITIAL_CAPACITY];
+        intervalsMs = new int[INITIAL_CAPACITY];
+        nextDueTimesMs = new long[INITIAL_CAPACITY];
+        pollRates = new HashMap<>();
+        deadbands = new HashMap<>();
+    }
+
+    public void setPollRates(Map<Byte, SensorPollRate> pollRates) {
+        this.pollRates = pollRates;
+        reset();
+    }
+
+    /**
+     * Set the sensors that are sampled. Only these sensors are considered when deciding if any sensor is due, and a
+     * sensor that has just become active is sampled on the next poll.
+     *
+     * @param activeSensorIds Sensor data IDs of the active sensors
+     * @since 1.0
+     */
+    public void setActiveSensors(int[] activeSensorIds) {
+        // Applied by the sensor poll thread as it owns the scheduling state
+        pendingActiveSensorIds = activeSensorIds;
+    }
+
+    public void setPollInterval(int pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public void setDeadbands(Map<Byte, SensorDeadband> deadbands) {
+        this.deadbands = deadbands;
+    }
+
+    /**
+     * Determine if a sensor is due to be sampled
+     *
+     * @param sensorData The sensor
+     * @param timeMs     Current time in milliseconds
+     * @return True if the sensor should be sampled
+     * @since 1.0
+     */
+    public boolean isDue(SensorData sensorData, long timeMs) {
+        applyPendingReset();
+        final int id = sensorData.getId();
+        return id < 0 || id >= sampled.length || !sampled[id] || isDue(id, timeMs);
+    }
+
+    /**
+     * Determine if any active sensor is due to be sampled. Used to skip reading the hardware on polls where every
+     * active sensor is waiting on a longer interval, or no sensor is placed on a page.
+     *
+     * @param timeMs Current time in milliseconds
+     * @return True if at least one sensor should be sampled
+     * @since 1.0
+     */
+    public boolean isAnyDue(long timeMs) {
+        applyPendingReset();
+        for (int id = 0; id < active.length; id++) {
+            if (active[id] && (!sampled[id] || isDue(id, timeMs))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Record a sample of a sensor and determine if it should be used. A sample of a sensor that is not due is ignored,
+     * otherwise the sensors interval is adapted to the change in its value and its next due time is set.
+     *
+     * @param sensorData The sensor that was sampled
+     * @param value      The sampled value
+     * @param timeMs     Current time in milliseconds
+     * @return True if the sample should be used
+     * @since 1.0
+     */
+    public boolean sample(SensorData sensorData, float value, long timeMs) {
+        final int id = sensorData.getId();
+        if (id < 0) {
+            return true;
+        }
+
+        applyPendingReset();
+        ensureCapacity(id);
+        if (sampled[id] && !isDue(id, timeMs)) {
+            return false;
+        }
+
+        final SensorPollRate pollRate = getPollRate(sensorData.getType());
+        final int minIntervalMs = pollRate.getMinIntervalMs();
+        final int maxIntervalMs = Math.max(minIntervalMs, pollRate.getMaxIntervalMs());
+
+        int intervalMs;
+        if (!sampled[id] || getDeadband(sensorData.getType()).isSignificantChange(lastValues[id], value)) {
+            intervalMs = minIntervalMs;
+        } else {
+            // Back off from a sensor that is not changing. Intervals shorter than a poll back off from the poll interval
+            intervalMs = (int) Math.min(maxIntervalMs, Math.max(intervalsMs[id], pollIntervalMs) * 2L);
+        }
+
+        sampled[id] = true;
+        lastValues[id] = value;
+        intervalsMs[id] = intervalMs;
+        nextDueTimesMs[id] = timeMs + intervalMs;
+        return true;
+    }
+
+    /**
+     * Forget the intervals of every sensor so that they are all sampled on the next poll
+     *
+     * @since 1.0
+     */
+    public void reset() {
+        // Applied by the sensor poll thread as it owns the scheduling state
+        resetPending = true;
+    }
+
+    private void applyPendingReset() {
+        if (resetPending) {
+            resetPending = false;
+            Arrays.fill(sampled, false);
+        }
+
+        final int[] activeSensorIds = pendingActiveSensorIds;
+        if (activeSensorIds != null) {
+            pendingActiveSensorIds = null;
+            final boolean[] wasActive = active.clone();
+            Arrays.fill(active, false);
+            for (int id : activeSensorIds) {
+                if (id >= 0) {
+                    ensureCapacity(id);
+                    active[id] = true;
+                    if (id >= wasActive.length || !wasActive[id]) {
+                        sampled[id] = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isDue(int id, long timeMs) {
+        // Polls do not land exactly on a due time, so a sensor due within half a poll is sampled now rather than a
+        // whole poll late
+        return timeMs + pollIntervalMs / 2 >= nextDueTimesMs[id];
+    }
+
+    private SensorPollRate getPollRate(byte sensorType) {
+        SensorPollRate pollRate = pollRates.get(sensorType);
+        return pollRate == null ? EVERY_POLL : pollRate;
+    }
+
+    private SensorDeadband getDeadband(byte sensorType) {
+        SensorDeadband deadband = deadbands.get(sensorType);
+        return deadband == null ? NO_DEADBAND : deadband;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= sampled.length) {
+            final int capacity = Math.max(id + 1, sampled.length * 2);
+            active = Arrays.copyOf(active, capacity);
+            sampled = Arrays.copyOf(sampled, capacity);
+            lastValues = Arrays.copyOf(lastValues, capacity);
+            intervalsMs = Arrays.copyOf(intervalsMs, capacity);
+            nextDueTimesMs = Arrays.copyOf(nextDueTimesMs, capacity);
+        }
+    }
+}
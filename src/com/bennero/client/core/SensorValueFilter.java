@@ -0,0 +1,175 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import com.bennero.client.network.SensorValueBatch;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SensorValueFilter decides which sensor value changes are sent to the hardware monitor. It sits between the sensor
+ * poll and the network client, and suppresses changes that are within the deadband of the sensors type. Sensors that
+ * have been silent for longer than their max silence period are sent again as a keep-alive. State is kept per ID in
+ * primitive arrays so that filtering does not allocate. A filter holds one kind of ID, either sensor GUI IDs or source
+ * channel IDs, as the two overlap. Only used by the sensor poll thread, apart from setting the deadbands and
+ * forgetting IDs, which are applied on the sensor poll thread.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorDeadband
+ * @since 1.0
+ */
+public class SensorValueFilter {
+    private static final int NUM_SENSOR_IDS = 256;
+    private static final SensorDeadband NO_DEADBAND = new SensorDeadband(0.0f, 0.0f,
+            SensorDeadband.DEFAULT_MAX_SILENCE_MS);
+
+    private final boolean[] known;
+    private final boolean[] transmitted;
+    private final byte[] sensorTypes;
+    private final float[] latestValues;
+    private final float[] lastSentValues;
+    private final long[] lastSentTimesMs;
+    private volatile Map<Byte, SensorDeadband> deadbands;
+    private final BitSet forgottenIds;
+    private volatile boolean idsForgotten;
+
+    public SensorValueFilter() {
+        known = new boolean[NUM_SENSOR_IDS];
+        transmitted = new boolean[NUM_SENSOR_IDS];
+        sensorTypes = new byte[NUM_SENSOR_IDS];
+        latestValues = new float[NUM_SENSOR_IDS];
+        lastSentValues = new float[NUM_SENSOR_IDS];
+        lastSentTimesMs = new long[NUM_SENSOR_IDS];
+        deadbands = new HashMap<>();
+        forgottenIds = new BitSet(NUM_SENSOR_IDS);
+        idsForgotten = false;
+    }
+
+    public void setDeadbands(Map<Byte, SensorDeadband> deadbands) {
+        this.deadbands = deadbands;
+    }
+
+    /**
+     * Record a new value for a sensor and determine if it should be sent to the hardware monitor. If it should, the
+     * value is considered sent.
+     *
+     * @param sensorId   ID of the sensor GUI or source channel, whichever this filter holds
+     * @param sensorType Type of the sensor, used to look up its deadband
+     * @param value      The new value
+     * @param timeMs     Current time in milliseconds
+     * @return True if the value should be sent
+     * @since 1.0
+     */
+    public boolean accept(int sensorId, byte sensorType, float value, long timeMs) {
+        applyForgottenIds();
+        final int key = sensorId & 0xFF;
+        known[key] = true;
+        sensorTypes[key] = sensorType;
+        latestValues[key] = value;
+
+        if (!transmitted[key] || getDeadband(sensorType).isSignificantChange(lastSentValues[key], value)) {
+            markSent(key, value, timeMs);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Add the latest value of every sensor that has not been sent for longer than its max silence period to a batch
+     *
+     * @param batch  Batch to add the keep-alive values to
+     * @param timeMs Current time in milliseconds
+     * @since 1.0
+     */
+    public void addKeepAlives(SensorValueBatch batch, long timeMs) {
+        applyForgottenIds();
+        for (int key = 0; key < NUM_SENSOR_IDS; key++) {
+            if (known[key] && transmitted[key]) {
+                final int maxSilenceMs = getDeadband(sensorTypes[key]).getMaxSilenceMs();
+                if (maxSilenceMs > 0 && timeMs - lastSentTimesMs[key] >= maxSilenceMs) {
+                    batch.put(key, latestValues[key]);
+                    markSent(key, latestValues[key], timeMs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget what has been sent so that the next value of every sensor is sent regardless of its deadband. Used when
+     * nothing could be sent, for example while not connected to a hardware monitor.
+     *
+     * @since 1.0
+     */
+    public void reset() {
+        for (int key = 0; key < NUM_SENSOR_IDS; key++) {
+            transmitted[key] = false;
+        }
+    }
+
+    /**
+     * Forget everything about an ID, used when a sensor GUI is removed or a source channel is released or given to
+     * another sensor. The ID is no longer sent keep-alives, and the next value sent with it is not compared against
+     * the value of whatever used the ID before. Can be called from any thread.
+     *
+     * @param id Sensor GUI or source channel ID, whichever this filter holds
+     * @since 1.0
+     */
+    public void forget(int id) {
+        synchronized (forgottenIds) {
+            forgottenIds.set(id & 0xFF);
+            idsForgotten = true;
+        }
+    }
+
+    private void applyForgottenIds() {
+        if (!idsForgotten) {
+            return;
+        }
+
+        synchronized (forgottenIds) {
+            for (int key = forgottenIds.nextSetBit(0); key >= 0; key = forgottenIds.nextSetBit(key + 1)) {
+                known[key] = false;
+                transmitted[key] = false;
+            }
+
+            forgottenIds.clear();
+            idsForgotten = false;
+        }
+    }
+
+    private SensorDeadband getDeadband(byte sensorType) {
+        SensorDeadband deadband = deadbands.get(sensorType);
+        return deadband == null ? NO_DEADBAND : deadband;
+    }
+
+    private void markSent(int key, float value, long timeMs) {
+        transmitted[key] = true;
+        lastSentValues[key] = value;
+        lastSentTimesMs[key] = timeMs;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import java.util.Arrays;
+
+/**
+ * SensorValueSnapshot holds the sensors that changed since a consumer last read the sensor value store. The changes
+ * are copied into primitive arrays while the store is locked, so that the consumer can apply them after the lock has
+ * been released without holding up the sensor poll. A consumer keeps and reuses its own snapshot, so reading the store
+ * only allocates when the snapshot has to grow to fit more sensors.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorValueStore
+ * @since 1.0
+ */
+public class SensorValueSnapshot {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private SensorData[] sensors;
+    private int[] ids;
+    private float[] values;
+    private long[] timestampsMs;
+    private int size;
+
+    public SensorValueSnapshot() {
+        sensors = new SensorData[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        values = new float[INITIAL_CAPACITY];
+        timestampsMs = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SensorData getSensorData(int index) {
+        return sensors[index];
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public float getValue(int index) {
+        return values[index];
+    }
+
+    public long getTimestampMs(int index) {
+        return timestampsMs[index];
+    }
+
+    /**
+     * Empty the snapshot, making sure that it has room for a number of sensors
+     *
+     * @param capacity Number of sensors that will be added
+     * @since 1.0
+     */
+    void clear(int capacity) {
+        // References are released so that the snapshot does not keep removed sensors alive
+        Arrays.fill(sensors, 0, size, null);
+        size = 0;
+
+        if (capacity > ids.length) {
+            final int newCapacity = Math.max(capacity, ids.length * 2);
+            sensors = new SensorData[newCapacity];
+            ids = new int[newCapacity];
+            values = new float[newCapacity];
+            timestampsMs = new long[newCapacity];
+        }
+    }
+
+    void add(SensorData sensorData, int id, float value, long timestampMs) {
+        sensors[size] = sensorData;
+        ids[size] = id;
+        values[size] = value;
+        timestampsMs[size] = timestampMs;
+        size++;
+    }
+
+    /**
+     * Release the sensors held by the snapshot once it has been applied
+     *
+     * @since 1.0
+     */
+    public void clear() {
+        clear(0);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.core;
+
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * SensorValueStore is the central store of the latest value of every sensor. Values and the time they were read are
+ * kept in primitive arrays indexed by the sensor data ID, so storing a value does not allocate. The sensor poll writes
+ * values into the store and consumers such as the GUI and the network client read them through snapshots. Each consumer
+ * has its own set of changed sensors, so a consumer only visits the sensors that have changed since it last read the
+ * store rather than every sensor.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorData
+ * @since 1.0
+ */
+public class SensorValueStore {
+    private static final String LOGGER_TAG = SensorValueStore.class.getSimpleName();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private SensorData[] sensors;
+    private float[] values;
+    private long[] timestampsMs;
+    private final List<BitSet> changedSensors;
+
+    public SensorValueStore() {
+        sensors = new SensorData[INITIAL_CAPACITY];
+        values = new float[INITIAL_CAPACITY];
+        timestampsMs = new long[INITIAL_CAPACITY];
+        changedSensors = new ArrayList<>();
+    }
+
+    /**
+     * Add a consumer of the store. The consumer is given every sensor as changed, so that its first read covers all of
+     * the current values.
+     *
+     * @return ID to read the store with
+     * @since 1.0
+     */
+    public synchronized int addConsumer() {
+        BitSet changed = new BitSet(sensors.length);
+        changedSensors.add(changed);
+        markAllChanged(changedSensors.size() - 1);
+        return changedSensors.size() - 1;
+    }
+
+    /**
+     * Add a sensor to the store with its initial value
+     *
+     * @param sensorData The sensor to add
+     * @since 1.0
+     */
+    public synchronized void addSensor(SensorData sensorData) {
+        final int id = sensorData.getId();
+        if (id < 0) {
+            Logger.log(LogLevel.ERROR, LOGGER_TAG, "Cannot store values of sensor with negative ID: " + id);
+            return;
+        }
+
+        if (id >= sensors.length) {
+            final int capacity = Math.max(id + 1, sensors.length * 2);
+            sensors = Arrays.copyOf(sensors, capacity);
+            values = Arrays.copyOf(values, capacity);
+            timestampsMs = Arrays.copyOf(timestampsMs, capacity);
+        }
+
+        sensors[id] = sensorData;
+        put(id, sensorData.getInitialValue(), System.currentTimeMillis());
+    }
+
+    /**
+     * Store a new value of a sensor and mark it as changed for every consumer
+     *
+     * @param id          ID of the sensor data
+     * @param value       The new value
+     * @param timestampMs Time that the value was read
+     * @since 1.0
+     */
+    public synchronized void put(int id, float value, long timestampMs) {
+        if (id < 0 || id >= sensors.length || sensors[id] == null) {
+            return;
+        }
+
+        values[id] = value;
+        timestampsMs[id] = timestampMs;
+        for (int i = 0; i < changedSensors.size(); i++) {
+            changedSensors.get(i).set(id);
+        }
+    }
+
+    public synchronized float getValue(int id) {
+        return values[id];
+    }
+
+    public synchronized long getTimestampMs(int id) {
+        return timestampsMs[id];
+    }
+
+    public synchronized boolean hasChanges(int consumerId) {
+        return !changedSensors.get(consumerId).isEmpty();
+    }
+
+    /**
+     * Mark every sensor as changed for a consumer, so that its next read covers all of the current values
+     *
+     * @param consumerId ID of the consumer
+     * @since 1.0
+     */
+    public synchronized void markAllChanged(int consumerId) {
+        BitSet changed = changedSensors.get(consumerId);
+        for (int id = 0; id < sensors.length; id++) {
+            if (sensors[id] != null) {
+                changed.set(id);
+            }
+        }
+    }
+
+    /**
+     * Copy every sensor that has changed since the consumer last read the store into the consumers snapshot, then clear
+     * the consumers changes. Only the copy is made while the store is locked, the consumer applies the snapshot after
+     * this returns.
+     *
+     * @param consumerId ID of the consumer
+     * @param snapshot   Snapshot of the consumer to copy the changed sensors into
+     * @since 1.0
+     */
+    public synchronized void readChanged(int consumerId, SensorValueSnapshot snapshot) {
+        BitSet changed = changedSensors.get(consumerId);
+        snapshot.clear(changed.cardinality());
+        for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+            snapshot.add(sensors[id], id, values[id], timestampsMs[id]);
+        }
+
+        changed.clear();
+    }
+}
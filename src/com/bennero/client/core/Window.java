@@ -23,6 +23,7 @@
 
 package com.bennero.client.core;
 
+import com.bennero.client.config.SaveManager;
 import com.bennero.client.states.StateData;
 import com.bennero.common.TransitionType;
 import com.bennero.common.logging.LogLevel;
@@ -92,7 +93,12 @@ public class Window {
             if (SystemTrayManager.isSupported()) {
                 stage.setOnCloseRequest(windowEvent -> destroyGui());
             } else {
-                stage.setOnCloseRequest(windowEvent -> System.exit(0));
+                stage.setOnCloseRequest(windowEvent ->
+                {
+                    // Exiting here skips Application.stop(), so write any save changes that are still pending
+                    SaveManager.getInstance().flush();
+                    System.exit(0);
+                });
             }
         }
     }
@@ -0,0 +1,58 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.messages;
+
+/**
+ * Capability defines the bits of the capability bitmask exchanged in the connection handshake. The editor sends the
+ * capabilities it supports in its connection request and the hardware monitor replies with the ones it supports. A
+ * protocol feature is only used on a connection if both sides support it. Older hardware monitors do not send a
+ * bitmask, which reads as no capabilities, so they only ever receive the original messages.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see CapabilityDataPositions
+ * @since 1.0
+ */
+public class Capability {
+    // Sensor values sent in SENSOR_VALUES messages instead of a DATA message each
+    public static final int BATCHED_SENSOR_VALUES = 0x01;
+
+    // Whole layouts sent as LAYOUT_SNAPSHOT messages, and layouts identified by LAYOUT_HASH
+    public static final int LAYOUT_SNAPSHOT = 0x02;
+
+    // Layout snapshots may be Deflate compressed
+    public static final int LAYOUT_COMPRESSION = 0x04;
+
+    // Messages sent as length-prefixed variable-length frames
+    public static final int VARIABLE_FRAMING = 0x08;
+
+    // Sensor values streamed over UDP
+    public static final int UDP_STREAMING = 0x10;
+
+    // Sensor values carry the time they were read
+    public static final int TIMESTAMPED_VALUES = 0x20;
+
+    // Sensor values sent once per source channel instead of once per sensor GUI
+    public static final int SOURCE_CHANNELS = 0x40;
+}
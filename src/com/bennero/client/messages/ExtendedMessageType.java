@@ -0,0 +1,43 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.messages;
+
+/**
+ * ExtendedMessageType defines the network message types that have been introduced by the editor on top of the ones
+ * defined in MessageType of the common library. The values are chosen from a range that is not used by the common
+ * message types so that a hardware monitor that does not understand them can safely ignore them. The editor only ever
+ * sends these messages to a hardware monitor that has reported that it supports them.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see com.bennero.common.messages.MessageType
+ * @since 1.0
+ */
+public class ExtendedMessageType {
+    public static final byte SENSOR_VALUES = 0x40;
+    public static final byte LAYOUT_SNAPSHOT = 0x41;
+    public static final byte LAYOUT_HASH = 0x42;
+    public static final byte SENSOR_VALUES_DATAGRAM = 0x43;
+    public static final byte SOURCE_CHANNEL = 0x44;
+}
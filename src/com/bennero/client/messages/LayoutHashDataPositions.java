@@ -0,0 +1,54 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.messages;
+
+import com.bennero.common.messages.ConnectionRequestDataPositions;
+import com.bennero.common.messages.ConnectionRequestReplyDataPositions;
+
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+import static com.bennero.common.Constants.NAME_STRING_NUM_BYTES;
+
+/**
+ * LayoutHashDataPositions defines where a layout hash is stored in network messages. The layout hash identifies the
+ * pages and sensors that a hardware monitor holds. The editor sends it in a layout hash message whenever the layout
+ * changes and in its connection request, and the hardware monitor echoes the hash it holds in its connection request
+ * reply. This allows the editor to skip re-sending a layout that the hardware monitor already has when reconnecting. A
+ * hash of zero means that no layout is known (older hardware monitors leave these bytes empty).
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see ExtendedMessageType#LAYOUT_HASH
+ * @since 1.0
+ */
+public class LayoutHashDataPositions {
+    public static final int NO_LAYOUT_HASH = 0;
+
+    // Position of the hash in a layout hash message
+    public static final int HASH_POS = MESSAGE_TYPE_POS + 1;
+
+    // Positions of the hash after the existing fields of the connection request and reply messages
+    public static final int REQUEST_HASH_POS = ConnectionRequestDataPositions.HOSTNAME_POS + NAME_STRING_NUM_BYTES;
+    public static final int REPLY_HASH_POS = ConnectionRequestReplyDataPositions.CURRENT_CLIENT_HOSTNAME +
+            NAME_STRING_NUM_BYTES;
+}
@@ -0,0 +1,53 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.messages;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+
+/**
+ * LayoutSnapshotDataPositions defines the layout of a layout snapshot chunk message. A layout snapshot is the
+ * PAGE_SETUP and SENSOR_SETUP messages of a whole save concatenated into one stream, optionally Deflate compressed, and
+ * split into as many chunks as needed. Each chunk carries its index, the total number of chunks, the number of payload
+ * bytes it holds and the length of the uncompressed stream, so that the hardware monitor can reassemble the stream and
+ * then process the messages in it in order.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see ExtendedMessageType#LAYOUT_SNAPSHOT
+ * @since 1.0
+ */
+public class LayoutSnapshotDataPositions {
+    // Flags describing how the stream has been encoded
+    public static final byte FLAG_DEFLATE = 0x01;
+
+    public static final int FLAGS_POS = MESSAGE_TYPE_POS + 1;
+    public static final int CHUNK_INDEX_POS = FLAGS_POS + 1;
+    public static final int CHUNK_COUNT_POS = CHUNK_INDEX_POS + Integer.BYTES;
+    public static final int PAYLOAD_LENGTH_POS = CHUNK_COUNT_POS + Integer.BYTES;
+    public static final int UNCOMPRESSED_LENGTH_POS = PAYLOAD_LENGTH_POS + Integer.BYTES;
+    public static final int PAYLOAD_POS = UNCOMPRESSED_LENGTH_POS + Integer.BYTES;
+
+    public static final int MAX_PAYLOAD_BYTES = MESSAGE_NUM_BYTES - PAYLOAD_POS;
+}
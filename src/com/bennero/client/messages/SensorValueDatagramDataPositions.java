@@ -0,0 +1,55 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.messages;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+
+/**
+ * SensorValueDatagramDataPositions defines the layout of a sensor values datagram, which is how sensor values are sent
+ * when streaming over UDP. It is a batched sensor value message with a sequence number. Every datagram sent for the
+ * same sensor poll carries the same sequence number and the number increases with every poll, so the hardware monitor
+ * can ignore a value for a sensor if it has already applied one from a later poll (a late or re-ordered datagram). The
+ * entries have the same layout as in a SENSOR_VALUES message. Datagrams are not padded.
+ *
+ * The position of the UDP port that the hardware monitor listens on is also defined here. It is sent in the connection
+ * request reply after the capability bitmask.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see ExtendedMessageType#SENSOR_VALUES_DATAGRAM
+ * @see SensorValuesDataPositions
+ * @since 1.0
+ */
+public class SensorValueDatagramDataPositions {
+    public static final int SEQUENCE_POS = MESSAGE_TYPE_POS + 1;
+    public static final int COUNT_POS = SEQUENCE_POS + Integer.BYTES;
+    public static final int FIRST_ENTRY_POS = COUNT_POS + 1;
+
+    // The count is stored in a single byte so a datagram can never hold more than 255 entries
+    public static final int MAX_ENTRIES = Math.min(0xFF, (MESSAGE_NUM_BYTES - FIRST_ENTRY_POS) /
+            SensorValuesDataPositions.ENTRY_NUM_BYTES);
+
+    public static final int REPLY_UDP_PORT_POS = CapabilityDataPositions.REPLY_CAPABILITIES_POS + Integer.BYTES;
+}
@@ -0,0 +1,49 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.messages;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+
+/**
+ * SensorValuesDataPositions defines the layout of a batched sensor value message. Instead of carrying a single sensor
+ * ID and value like a DATA message, it carries a count followed by as many ID/value entries as fit in one message.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see ExtendedMessageType#SENSOR_VALUES
+ * @since 1.0
+ */
+public class SensorValuesDataPositions {
+    public static final int COUNT_POS = MESSAGE_TYPE_POS + 1;
+    public static final int FIRST_ENTRY_POS = COUNT_POS + 1;
+
+    // Offsets of the fields inside each entry
+    public static final int ENTRY_ID_OFFSET = 0;
+    public static final int ENTRY_VALUE_OFFSET = ENTRY_ID_OFFSET + 1;
+    public static final int ENTRY_NUM_BYTES = ENTRY_VALUE_OFFSET + Float.BYTES;
+
+    // The count is stored in a single byte so a message can never hold more than 255 entries
+    public static final int MAX_ENTRIES = Math.min(0xFF, (MESSAGE_NUM_BYTES - FIRST_ENTRY_POS) / ENTRY_NUM_BYTES);
+}
@@ -0,0 +1,48 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.messages;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+
+/**
+ * SourceChannelDataPositions defines the layout of a source channel message. A source channel is one sensor value
+ * source that several sensor GUIs display, for example a CPU temperature shown on more than one page. The message binds
+ * the sensor GUIs to the channel, replacing any previous bindings of the channel, so that the editor can then send one
+ * value for the channel instead of one value per sensor GUI. A count of zero removes the channel. Bindings may name
+ * sensor GUIs that the hardware monitor has not been sent yet, as bindings are sent when a sensor is registered.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see ExtendedMessageType#SOURCE_CHANNEL
+ * @since 1.0
+ */
+public class SourceChannelDataPositions {
+    public static final int CHANNEL_ID_POS = MESSAGE_TYPE_POS + 1;
+    public static final int COUNT_POS = CHANNEL_ID_POS + 1;
+    public static final int FIRST_SENSOR_ID_POS = COUNT_POS + 1;
+
+    // The count is stored in a single byte so a channel can never bind more than 255 sensor GUIs
+    public static final int MAX_SENSORS = Math.min(0xFF, MESSAGE_NUM_BYTES - FIRST_SENSOR_ID_POS);
+}
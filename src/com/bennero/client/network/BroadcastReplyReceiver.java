@@ -35,6 +35,7 @@ import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 
 import static com.bennero.common.Constants.*;
 import static com.bennero.common.networking.NetworkUtils.*;
@@ -84,13 +85,14 @@ public class BroadcastReplyReceiver extends Thread {
             serverSocketChannel.socket().bind(new InetSocketAddress(BROADCAST_REPLY_PORT));
             this.run = true;
 
+            // One receive buffer is reused for every reply so that receiving does not allocate
+            byte[] bytes = new byte[MESSAGE_NUM_BYTES];
             while (run) {
                 // Build to accept multiple connections
                 SocketChannel socketChannel = serverSocketChannel.accept();
                 InputStream is = socketChannel.socket().getInputStream();
-                byte[] bytes;
 
-                bytes = new byte[MESSAGE_NUM_BYTES];
+                Arrays.fill(bytes, (byte) 0);
                 is.read(bytes, 0, MESSAGE_NUM_BYTES);
                 readMessage(bytes);
 
@@ -23,11 +23,15 @@
 
 package com.bennero.client.network;
 
+import com.bennero.client.messages.CapabilityDataPositions;
+import com.bennero.client.messages.LayoutHashDataPositions;
+import com.bennero.client.messages.SensorValueDatagramDataPositions;
 import com.bennero.common.PageData;
 import com.bennero.common.messages.ConnectionRequestReplyDataPositions;
 
 import static com.bennero.client.Version.*;
 import static com.bennero.common.Constants.NAME_STRING_NUM_BYTES;
+import static com.bennero.common.networking.NetworkUtils.readInt;
 import static com.bennero.common.networking.NetworkUtils.readString;
 
 /**
@@ -48,6 +52,9 @@ public class ConnectionRequestReplyMessage {
     private final boolean versionMismatch;
     private final boolean currentlyInUse;
     private final String currentClientHostname;
+    private final int layoutHash;
+    private final int capabilities;
+    private final int udpPort;
 
     public ConnectionRequestReplyMessage(final byte majorVersion,
                                          final byte minorVersion,
@@ -55,7 +62,10 @@ public class ConnectionRequestReplyMessage {
                                          final boolean connectionAccepted,
                                          final boolean versionMismatch,
                                          final boolean currentlyInUse,
-                                         final String currentClientHostname) {
+                                         final String currentClientHostname,
+                                         final int layoutHash,
+                                         final int capabilities,
+                                         final int udpPort) {
         this.majorVersion = majorVersion;
         this.minorVersion = minorVersion;
         this.patchVersion = patchVersion;
@@ -63,6 +73,9 @@ public class ConnectionRequestReplyMessage {
         this.versionMismatch = versionMismatch;
         this.currentlyInUse = currentlyInUse;
         this.currentClientHostname = currentClientHostname;
+        this.layoutHash = layoutHash;
+        this.capabilities = capabilities;
+        this.udpPort = udpPort;
     }
 
     public static ConnectionRequestReplyMessage processConnectionRequestReplyMessageData(byte[] bytes) {
@@ -72,6 +85,9 @@ public class ConnectionRequestReplyMessage {
         final boolean connectionAccepted = bytes[ConnectionRequestReplyDataPositions.CONNECTION_ACCEPTED] == 0x01;
         final boolean versionMismatch = bytes[ConnectionRequestReplyDataPositions.VERSION_MISMATCH] == 0x01;
         final boolean currentlyInUse = bytes[ConnectionRequestReplyDataPositions.CURRENTLY_IN_USE] == 0x01;
+        final int layoutHash = readInt(bytes, LayoutHashDataPositions.REPLY_HASH_POS);
+        final int capabilities = readInt(bytes, CapabilityDataPositions.REPLY_CAPABILITIES_POS);
+        final int udpPort = readInt(bytes, SensorValueDatagramDataPositions.REPLY_UDP_PORT_POS);
         String currentClientHostname = null;
 
         if (!connectionAccepted && currentlyInUse) {
@@ -80,7 +96,8 @@ public class ConnectionRequestReplyMessage {
         }
 
         return new ConnectionRequestReplyMessage(majorVersion, minorVersion, patchVersion, connectionAccepted,
-                versionMismatch, currentlyInUse, currentClientHostname);
+                versionMismatch, currentlyInUse, currentClientHostname, layoutHash,
+                capabilities, udpPort);
     }
 
     public byte getMajorVersion() {
@@ -110,4 +127,16 @@ public class ConnectionRequestReplyMessage {
     public String getCurrentClientHostname() {
         return currentClientHostname;
     }
+
+    public int getLayoutHash() {
+        return layoutHash;
+    }
+
+    public int getCapabilities() {
+        return capabilities;
+    }
+
+    public int getUdpPort() {
+        return udpPort;
+    }
 }
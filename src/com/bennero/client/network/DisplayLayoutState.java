@@ -0,0 +1,106 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DisplayLayoutState is the editors record of the pages and sensors that the connected hardware monitor holds. It
+ * stores the last PAGE_SETUP and SENSOR_SETUP message sent for each page and sensor (with sensor values cleared), and
+ * is updated by the network client as messages are written. This allows layout changes to be sent as the difference
+ * between what the hardware monitor holds and the new layout. The state is only known once a full layout has been sent
+ * on the current connection, before that the hardware monitor may hold pages the editor knows nothing about.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see NetworkClient
+ * @since 1.0
+ */
+public class DisplayLayoutState {
+    private final Map<Byte, byte[]> pageMessages;
+    private final Map<Byte, Map<Byte, byte[]>> sensorMessages;
+    private boolean known;
+
+    public DisplayLayoutState() {
+        pageMessages = new HashMap<>();
+        sensorMessages = new HashMap<>();
+        known = false;
+    }
+
+    public void clear() {
+        pageMessages.clear();
+        sensorMessages.clear();
+        known = false;
+    }
+
+    public boolean isKnown() {
+        return known;
+    }
+
+    public void setKnown(boolean known) {
+        this.known = known;
+    }
+
+    public void putPage(byte pageId, byte[] message) {
+        pageMessages.put(pageId, message.clone());
+    }
+
+    public byte[] getPage(byte pageId) {
+        return pageMessages.get(pageId);
+    }
+
+    public Set<Byte> getPageIds() {
+        return pageMessages.keySet();
+    }
+
+    public void removePage(byte pageId) {
+        pageMessages.remove(pageId);
+
+        // Removing a page from the hardware monitor also removes all of its sensors
+        sensorMessages.remove(pageId);
+    }
+
+    public void putSensor(byte pageId, byte sensorId, byte[] message) {
+        sensorMessages.computeIfAbsent(pageId, id -> new HashMap<>()).put(sensorId, message.clone());
+    }
+
+    public byte[] getSensor(byte pageId, byte sensorId) {
+        Map<Byte, byte[]> pageSensors = sensorMessages.get(pageId);
+        return pageSensors == null ? null : pageSensors.get(sensorId);
+    }
+
+    public Set<Byte> getSensorIds(byte pageId) {
+        Map<Byte, byte[]> pageSensors = sensorMessages.get(pageId);
+        return pageSensors == null ? Set.of() : pageSensors.keySet();
+    }
+
+    public void removeSensor(byte pageId, byte sensorId) {
+        Map<Byte, byte[]> pageSensors = sensorMessages.get(pageId);
+        if (pageSensors != null) {
+            pageSensors.remove(sensorId);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.util.Arrays;
 
 import static com.bennero.common.Constants.*;
 import static com.bennero.common.networking.NetworkUtils.readLong;
@@ -89,10 +90,12 @@ public class HeartbeatListener extends Thread {
             serverSocket.setSoTimeout(heartbeatTimeoutMilliseconds);
             socket.setSoTimeout(heartbeatTimeoutMilliseconds);
             InputStream is = socket.getInputStream();
+
+            // One receive buffer is reused for every heartbeat so that listening does not allocate
+            byte[] bytes = new byte[MESSAGE_NUM_BYTES];
             while (run) {
                 try {
-                    byte[] bytes;
-                    bytes = new byte[MESSAGE_NUM_BYTES];
+                    Arrays.fill(bytes, (byte) 0);
                     is.read(bytes, 0, MESSAGE_NUM_BYTES);
                     readMessage(bytes);
                 } catch (SocketTimeoutException se) {
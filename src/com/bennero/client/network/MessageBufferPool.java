@@ -0,0 +1,86 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MessageBufferPool is a pool of direct byte buffers that network messages are copied into before being queued for the
+ * network writer. Buffers are returned to the pool once they have been written (or dropped), so that sending messages
+ * does not allocate once the pool has warmed up. If the pool runs dry a new buffer is allocated and counted, and if a
+ * released buffer does not fit back into the pool it is left to the garbage collector.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see NetworkWriter
+ * @since 1.0
+ */
+public class MessageBufferPool {
+    private final int bufferCapacity;
+    private final ArrayBlockingQueue<ByteBuffer> freeBuffers;
+    private final AtomicLong allocatedBuffers;
+
+    public MessageBufferPool(int poolSize, int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+        this.freeBuffers = new ArrayBlockingQueue<>(poolSize);
+        this.allocatedBuffers = new AtomicLong();
+    }
+
+    /**
+     * Take a cleared buffer from the pool, allocating a new one if the pool is empty
+     *
+     * @return A cleared direct byte buffer
+     * @since 1.0
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            allocatedBuffers.incrementAndGet();
+            buffer = ByteBuffer.allocateDirect(bufferCapacity);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool. The buffer must not be used by the caller after it has been released.
+     *
+     * @param buffer Buffer that was previously acquired from this pool
+     * @since 1.0
+     */
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        freeBuffers.offer(buffer);
+    }
+
+    public int getFreeBufferCount() {
+        return freeBuffers.size();
+    }
+
+    public long getAllocatedBufferCount() {
+        return allocatedBuffers.get();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import java.nio.ByteBuffer;
+
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+
+/**
+ * MessageFraming writes messages using variable-length framing. Instead of padding every message to MESSAGE_NUM_BYTES,
+ * a frame is an unsigned 16-bit big-endian length followed by the message up to and including its last non-zero byte.
+ * The message still begins with its type, and the receiving hardware monitor pads the message back out with zeros, so
+ * the layout of each message type is unchanged. Only used with hardware monitors that support it, all others receive
+ * fixed size messages.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see NetworkClient
+ * @since 1.0
+ */
+public class MessageFraming {
+    public static final int LENGTH_PREFIX_NUM_BYTES = Short.BYTES;
+
+    /**
+     * Get the number of bytes of a message that need to be sent, which excludes any trailing zeros. The message type is
+     * always included.
+     *
+     * @param message The message bytes
+     * @param offset  Offset of the first byte of the message
+     * @param length  Full length of the message
+     * @return Number of bytes from the offset that have to be sent
+     * @since 1.0
+     */
+    public static int getPayloadLength(byte[] message, int offset, int length) {
+        int payloadLength = length;
+        while (payloadLength > MESSAGE_TYPE_POS + 1 && message[offset + payloadLength - 1] == 0) {
+            payloadLength--;
+        }
+
+        return payloadLength;
+    }
+
+    /**
+     * Write a message into a buffer as a length-prefixed frame
+     *
+     * @param buffer  Buffer to write the frame to, must have LENGTH_PREFIX_NUM_BYTES more space than the message
+     * @param message The message bytes
+     * @param offset  Offset of the first byte of the message
+     * @param length  Full length of the message
+     * @since 1.0
+     */
+    public static void writeFrame(ByteBuffer buffer, byte[] message, int offset, int length) {
+        final int payloadLength = getPayloadLength(message, offset, length);
+        buffer.putShort((short) payloadLength);
+        buffer.put(message, offset, payloadLength);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import com.bennero.client.messages.Capability;
+
+/**
+ * NegotiatedCapabilities are the protocol features that can be used on the current connection to a hardware monitor,
+ * which are the capabilities supported by both the editor and the hardware monitor.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see Capability
+ * @since 1.0
+ */
+public class NegotiatedCapabilities {
+    public static final NegotiatedCapabilities NONE = new NegotiatedCapabilities(0);
+
+    private final int capabilities;
+
+    public NegotiatedCapabilities(int capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    /**
+     * Negotiate the capabilities of a connection
+     *
+     * @param editorCapabilities  Capability bitmask of the editor
+     * @param monitorCapabilities Capability bitmask reported by the hardware monitor
+     * @return The capabilities supported by both
+     * @since 1.0
+     */
+    public static NegotiatedCapabilities negotiate(int editorCapabilities, int monitorCapabilities) {
+        return new NegotiatedCapabilities(editorCapabilities & monitorCapabilities);
+    }
+
+    public boolean isSupported(int capability) {
+        return (capabilities & capability) == capability;
+    }
+
+    public boolean isBatchedSensorValuesSupported() {
+        return isSupported(Capability.BATCHED_SENSOR_VALUES);
+    }
+
+    public boolean isLayoutSnapshotSupported() {
+        return isSupported(Capability.LAYOUT_SNAPSHOT);
+    }
+
+    public boolean isLayoutCompressionSupported() {
+        return isSupported(Capability.LAYOUT_COMPRESSION);
+    }
+
+    public boolean isVariableFramingSupported() {
+        return isSupported(Capability.VARIABLE_FRAMING);
+    }
+
+    public boolean isUdpStreamingSupported() {
+        return isSupported(Capability.UDP_STREAMING);
+    }
+
+    public boolean isTimestampedValuesSupported() {
+        return isSupported(Capability.TIMESTAMPED_VALUES);
+    }
+
+    public boolean isSourceChannelsSupported() {
+        return isSupported(Capability.SOURCE_CHANNELS);
+    }
+
+    public int getCapabilities() {
+        return capabilities;
+    }
+}
@@ -25,6 +25,14 @@ package com.bennero.client.network;
 
 import com.bennero.client.config.ProgramConfigManager;
 import com.bennero.client.core.SensorManager;
+import com.bennero.client.config.SaveManager;
+import com.bennero.client.messages.Capability;
+import com.bennero.client.messages.CapabilityDataPositions;
+import com.bennero.client.messages.ExtendedMessageType;
+import com.bennero.client.messages.LayoutHashDataPositions;
+import com.bennero.client.messages.LayoutSnapshotDataPositions;
+import com.bennero.client.messages.SensorValuesDataPositions;
+import com.bennero.client.messages.SourceChannelDataPositions;
 import com.bennero.common.PageData;
 import com.bennero.common.Sensor;
 import com.bennero.common.Skin;
@@ -38,9 +46,18 @@ import com.bennero.common.networking.NetworkUtils;
 import javafx.application.Platform;
 import javafx.event.EventHandler;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 import static com.bennero.client.Version.*;
 import static com.bennero.client.network.ConnectionRequestReplyMessage.processConnectionRequestReplyMessageData;
@@ -58,17 +75,56 @@ import static com.bennero.common.networking.NetworkUtils.*;
 public class NetworkClient {
     private static final String LOGGER_TAG = NetworkClient.class.getSimpleName();
 
+    // Protocol features supported by this editor, offered to hardware monitors in the connection request
+    private static final int EDITOR_CAPABILITIES = Capability.BATCHED_SENSOR_VALUES | Capability.LAYOUT_SNAPSHOT |
+            Capability.LAYOUT_COMPRESSION | Capability.VARIABLE_FRAMING | Capability.UDP_STREAMING |
+            Capability.SOURCE_CHANNELS;
+
+    // Number of messages that can be waiting to be written before new ones are dropped
+    private static final int OUTBOUND_QUEUE_CAPACITY = 1024;
+
+    // Enough buffers for a full outbound queue plus the messages being written by the network writer
+    private static final int MESSAGE_BUFFER_POOL_SIZE = OUTBOUND_QUEUE_CAPACITY + NetworkWriter.MAX_GATHERED_MESSAGES;
+
+    // Messages are encoded into a per-thread array and then copied into a pooled buffer when they are sent
+    private static final ThreadLocal<byte[]> ENCODE_BUFFER = ThreadLocal.withInitial(() -> new byte[MESSAGE_NUM_BYTES]);
+
     private static NetworkClient instance = null;
-    private Socket socket;
-    private PrintStream socketWriter;
+    private SocketChannel socketChannel;
+    // Set by the connection thread and read by the JavaFX and sensor poll threads, so read it once into a local
+    private volatile NetworkWriter networkWriter;
+    private volatile SensorValueStreamer sensorValueStreamer;
+    private final MessageBufferPool messageBufferPool;
     private ProgramConfigManager programConfigManager;
     private boolean connected;
     private HeartbeatListener heartbeatListener;
     private Thread connectionThread;
+    private volatile NegotiatedCapabilities negotiatedCapabilities;
+    private volatile boolean variableFramingEnabled;
+    private int displayLayoutHash;
+    private final DisplayLayoutState displayLayoutState;
+
+    // Hash of the layout of the current save. Computed on the JavaFX thread because the pages are edited there, the
+    // connection thread only reads it when sending the handshake.
+    private volatile int layoutHash;
+    private boolean layoutHashUpdateQueued;
+
+    // Set when a layout message could not be queued, the hardware monitor may not hold the layout the editor recorded
+    private volatile boolean layoutResyncRequired;
+    private boolean layoutCompressionEnabled;
+    private boolean udpStreamingEnabled;
 
     private NetworkClient() {
         this.programConfigManager = ProgramConfigManager.getInstance();
         this.connected = false;
+        this.layoutCompressionEnabled = true;
+        this.udpStreamingEnabled = true;
+        this.negotiatedCapabilities = NegotiatedCapabilities.NONE;
+        this.displayLayoutState = new DisplayLayoutState();
+        this.layoutHash = LayoutHashDataPositions.NO_LAYOUT_HASH;
+        this.layoutHashUpdateQueued = false;
+        this.messageBufferPool = new MessageBufferPool(MESSAGE_BUFFER_POOL_SIZE,
+                MessageFraming.LENGTH_PREFIX_NUM_BYTES + MESSAGE_NUM_BYTES);
     }
 
     public static NetworkClient getInstance() {
@@ -80,7 +136,7 @@ public class NetworkClient {
     }
 
     public boolean isConnected() {
-        if (socket == null || socket.isClosed()) {
+        if (socketChannel == null || !socketChannel.isOpen()) {
             return false;
         } else {
             return connected;
@@ -105,16 +161,28 @@ public class NetworkClient {
 
                 // This means that the IP4 and MAC address have just been discovered, so we can start with a direct
                 // connection attempt
-                socket = new Socket();
-                socket.connect(new InetSocketAddress(InetAddress.getByAddress(connectionInformation.getIp4Address()), PORT), 5000);
-                socketWriter = new PrintStream(socket.getOutputStream(), true);
+                negotiatedCapabilities = NegotiatedCapabilities.NONE;
+                variableFramingEnabled = false;
+                displayLayoutHash = LayoutHashDataPositions.NO_LAYOUT_HASH;
+                displayLayoutState.clear();
+                layoutResyncRequired = false;
+                stopNetworkWriter();
+                closeSensorValueStreamer();
+                socketChannel = SocketChannel.open();
+                socketChannel.socket().connect(new InetSocketAddress(InetAddress.getByAddress(connectionInformation.getIp4Address()), PORT), 5000);
+
+                // All messages are written on the network writer thread so that a slow monitor never blocks callers
+                NetworkWriter writer = new NetworkWriter(socketChannel, messageBufferPool, OUTBOUND_QUEUE_CAPACITY,
+                        () -> Platform.runLater(this::resyncLayout));
+                writer.start();
+                networkWriter = writer;
 
                 heartbeatListener = new HeartbeatListener(HEARTBEAT_TIMEOUT_MS,
                         event -> Platform.runLater(() -> connectionEventHandler.handle(new ConnectedEvent(connectionInformation, ConnectionStatus.HEARTBEAT_TIMEOUT))),
                         event -> Platform.runLater(() -> connectionEventHandler.handle(new ConnectedEvent(connectionInformation, ConnectionStatus.UNEXPECTED_DISCONNECT))));
                 heartbeatListener.start();
 
-                if (socket.isConnected()) {
+                if (socketChannel.isConnected()) {
                     Logger.log(LogLevel.INFO, LOGGER_TAG, "Connected to " +
                             NetworkUtils.ip4AddressToString(connectionInformation.getIp4Address()));
 
@@ -125,7 +193,7 @@ public class NetworkClient {
                     sendHandshakeMessage();
 
                     byte[] bytes = new byte[MESSAGE_NUM_BYTES];
-                    socket.getInputStream().read(bytes, 0, MESSAGE_NUM_BYTES);
+                    socketChannel.socket().getInputStream().read(bytes, 0, MESSAGE_NUM_BYTES);
 
                     if (bytes[MESSAGE_TYPE_POS] == MessageType.CONNECTION_REQUEST_RESPONSE_MESSAGE) {
                         Logger.log(LogLevel.INFO, LOGGER_TAG, "Received connection request response");
@@ -137,6 +205,22 @@ public class NetworkClient {
                                     message.getMinorVersion() + "." + message.getPatchVersion() +
                                     ") accepted connection");
 
+                            negotiatedCapabilities = NegotiatedCapabilities.negotiate(EDITOR_CAPABILITIES,
+                                    message.getCapabilities());
+                            Logger.log(LogLevel.INFO, LOGGER_TAG, "Negotiated capabilities: 0x" +
+                                    Integer.toHexString(negotiatedCapabilities.getCapabilities()));
+
+                            // The layout hash is part of the layout snapshot capability. A hardware monitor without it
+                            // does not send a hash, so whatever is in that part of the reply must not be trusted.
+                            displayLayoutHash = negotiatedCapabilities.isLayoutSnapshotSupported() ?
+                                    message.getLayoutHash() : LayoutHashDataPositions.NO_LAYOUT_HASH;
+
+                            // Everything after the connection request reply can use the more compact framing
+                            variableFramingEnabled = isVariableFramingSupported();
+
+                            if (udpStreamingEnabled && negotiatedCapabilities.isUdpStreamingSupported()) {
+                                openSensorValueStreamer(connectionInformation, message.getUdpPort());
+                            }
                             Platform.runLater(() -> connectionEventHandler.handle(new ConnectedEvent(
                                     connectionInformation, ConnectionStatus.CONNECTED)));
                             connected = true;
@@ -193,8 +277,12 @@ public class NetworkClient {
             Logger.log(LogLevel.INFO, LOGGER_TAG, "Disconnected from hardware monitor");
             programConfigManager.clearConnectionData();
 
+            // Make sure that the disconnect message has been written before closing the connection
+            stopNetworkWriter();
+            closeSensorValueStreamer();
+
             try {
-                socket.close();
+                socketChannel.close();
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -206,12 +294,14 @@ public class NetworkClient {
     }
 
     public void writeRemovePageMessage(byte pageId) {
-        if (socket != null && socket.isConnected()) {
-            byte[] message = new byte[MESSAGE_NUM_BYTES];
+        queueLayoutHashUpdate();
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
 
             message[MESSAGE_TYPE_POS] = MessageType.REMOVE_PAGE;
             message[MESSAGE_TYPE_POS + 1] = pageId;
             sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            displayLayoutState.removePage(pageId);
             Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent Remove Page Message: [ID: " + pageId + "]");
         } else {
             Logger.log(LogLevel.ERROR, LOGGER_TAG,
@@ -220,13 +310,15 @@ public class NetworkClient {
     }
 
     public void writeRemoveSensorMessage(byte sensorId, byte pageId) {
-        if (socket != null && socket.isConnected()) {
-            byte[] message = new byte[MESSAGE_NUM_BYTES];
+        queueLayoutHashUpdate();
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
 
             message[MESSAGE_TYPE_POS] = MessageType.REMOVE_SENSOR;
             message[RemoveSensorDataPositions.SENSOR_ID_POS] = sensorId;
             message[RemoveSensorDataPositions.PAGE_ID_POS] = pageId;
             sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            displayLayoutState.removeSensor(pageId, sensorId);
             Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent Remove Sensor Message: [ID: " + sensorId + "]");
         } else {
             Logger.log(LogLevel.ERROR, LOGGER_TAG,
@@ -235,10 +327,12 @@ public class NetworkClient {
     }
 
     public void writePageMessage(PageData pageData) {
-        if (socket != null && socket.isConnected()) {
-            byte[] message = new byte[MESSAGE_NUM_BYTES];
+        queueLayoutHashUpdate();
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
             writePageSetupMessage(pageData, message);
             sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            displayLayoutState.putPage((byte) pageData.getUniqueId(), message);
             Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent PageData Message: [ID: " + pageData.getUniqueId() +
                     "], [TITLE: " + pageData.getTitle() + "]");
         } else {
@@ -248,10 +342,12 @@ public class NetworkClient {
     }
 
     public void writeSensorMessage(Sensor sensor, byte pageId) {
-        if (socket != null && socket.isConnected()) {
-            byte[] message = new byte[MESSAGE_NUM_BYTES];
+        queueLayoutHashUpdate();
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
             writeSensorSetupMessage(sensor, pageId, message);
             sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            recordSensorSetupMessage(pageId, message);
             Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent Sensor set-up Message: [ID: " + sensor.getUniqueId() +
                     "], [TITLE: " + sensor.getTitle() + "]");
         } else {
@@ -261,8 +357,9 @@ public class NetworkClient {
     }
 
     public void writeSensorTransformationMessage(Sensor sensor, byte pageId) {
-        if (socket != null && socket.isConnected()) {
-            byte[] message = new byte[MESSAGE_NUM_BYTES];
+        queueLayoutHashUpdate();
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
 
             message[MESSAGE_TYPE_POS] = MessageType.SENSOR_TRANSFORMATION_MESSAGE;
             message[SensorTransformationPositions.ID_POS] = (byte) sensor.getUniqueId();
@@ -273,6 +370,14 @@ public class NetworkClient {
             message[SensorTransformationPositions.COLUMN_SPAN_POS] = (byte) sensor.getColumnSpan();
             sendMessage(message, 0, MESSAGE_NUM_BYTES);
 
+            byte[] sensorMessage = displayLayoutState.getSensor(pageId, (byte) sensor.getUniqueId());
+            if (sensorMessage != null) {
+                sensorMessage[SensorDataPositions.ROW_POS] = (byte) sensor.getRow();
+                sensorMessage[SensorDataPositions.COLUMN_POS] = (byte) sensor.getColumn();
+                sensorMessage[SensorDataPositions.ROW_SPAN_POS] = (byte) sensor.getRowSpan();
+                sensorMessage[SensorDataPositions.COLUMN_SPAN_POS] = (byte) sensor.getColumnSpan();
+            }
+
             Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent Sensor Transformation Message: [ID: " +
                     sensor.getUniqueId() + "], [TITLE: " + sensor.getTitle() + "]");
         } else {
@@ -281,25 +386,432 @@ public class NetworkClient {
         }
     }
 
-    // Make it so we can write an array of sensor values in one message and if there is too many for one message, write
-    // the remaining on another
     public void writeSensorValueMessage(int sensorId, float value) {
-        if (socket != null && socket.isConnected()) {
-            byte[] message = new byte[MESSAGE_NUM_BYTES];
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
 
             message[MESSAGE_TYPE_POS] = MessageType.DATA;
             message[SensorValueDataPositions.ID_POS] = (byte) sensorId;
             writeToMessage(message, SensorValueDataPositions.VALUE_POS, value);
-            sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            sendSensorValueMessage(message, 0, MESSAGE_NUM_BYTES);
         } else {
             Logger.log(LogLevel.ERROR, LOGGER_TAG,
                     "Failed to send Sensor value message because socket is not connected");
         }
     }
 
+    /**
+     * Write the sensor GUIs that display a source channel to the hardware monitor, replacing the previous bindings of
+     * the channel. Sensor values written to the channel are then shown on every one of the sensor GUIs.
+     *
+     * @param channelId ID of the source channel
+     * @param sensors   The sensor GUIs bound to the channel, empty to remove the channel
+     * @since 1.0
+     */
+    public void writeSourceChannelMessage(int channelId, List<Sensor> sensors) {
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
+
+            final int count = Math.min(sensors.size(), SourceChannelDataPositions.MAX_SENSORS);
+            message[MESSAGE_TYPE_POS] = ExtendedMessageType.SOURCE_CHANNEL;
+            message[SourceChannelDataPositions.CHANNEL_ID_POS] = (byte) channelId;
+            message[SourceChannelDataPositions.COUNT_POS] = (byte) count;
+            for (int i = 0; i < count; i++) {
+                message[SourceChannelDataPositions.FIRST_SENSOR_ID_POS + i] = (byte) sensors.get(i).getUniqueId();
+            }
+
+            sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent Source Channel Message: [ID: " + channelId +
+                    "], [SENSORS: " + count + "]");
+        } else {
+            Logger.log(LogLevel.ERROR, LOGGER_TAG,
+                    "Failed to send Source Channel message because socket is not connected");
+        }
+    }
+
+    /**
+     * Write all of the sensor values in a batch to the hardware monitor. The values are packed into as few messages as
+     * possible, a new message is only started when the previous one is full. If the connected hardware monitor does
+     * not support batched sensor values, a DATA message is written for each value instead. When streaming over UDP the
+     * values are sent in sensor value datagrams instead of over the connection.
+     *
+     * @param batch The sensor values to write
+     * @since 1.0
+     */
+    public void writeSensorValues(SensorValueBatch batch) {
+        if (socketChannel != null && socketChannel.isConnected()) {
+            SensorValueStreamer streamer = sensorValueStreamer;
+            if (streamer != null) {
+                streamer.send(batch);
+                return;
+            }
+
+            if (!isBatchedSensorValuesSupported()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    writeSensorValueMessage(batch.getSensorId(i), batch.getValue(i));
+                }
+                return;
+            }
+
+            byte[] message = getEncodeBuffer();
+            int entries = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                final int entryPos = SensorValuesDataPositions.FIRST_ENTRY_POS +
+                        (entries * SensorValuesDataPositions.ENTRY_NUM_BYTES);
+                message[entryPos + SensorValuesDataPositions.ENTRY_ID_OFFSET] = (byte) batch.getSensorId(i);
+                writeToMessage(message, entryPos + SensorValuesDataPositions.ENTRY_VALUE_OFFSET, batch.getValue(i));
+                entries++;
+
+                // Send the message once it is full or there are no more values left to add
+                if (entries == SensorValuesDataPositions.MAX_ENTRIES || i == batch.size() - 1) {
+                    message[MESSAGE_TYPE_POS] = ExtendedMessageType.SENSOR_VALUES;
+                    message[SensorValuesDataPositions.COUNT_POS] = (byte) entries;
+                    sendSensorValueMessage(message, 0, MESSAGE_NUM_BYTES);
+
+                    // The sent message has been copied so the encode buffer can be reused for the next one
+                    message = getEncodeBuffer();
+                    entries = 0;
+                }
+            }
+        } else {
+            Logger.log(LogLevel.ERROR, LOGGER_TAG,
+                    "Failed to send Sensor values message because socket is not connected");
+        }
+    }
+
+    /**
+     * Write the layout of all of the given pages and their sensors to the hardware monitor. If the hardware monitor
+     * supports layout snapshots, the PAGE_SETUP and SENSOR_SETUP messages are encoded into one stream, Deflate
+     * compressed if that makes it smaller, and sent as a burst of full chunks. Otherwise a message is written for each
+     * page and sensor.
+     *
+     * @param pageDataList The pages to write
+     * @since 1.0
+     */
+    public void writeLayoutSnapshot(List<PageData> pageDataList) {
+        if (socketChannel != null && socketChannel.isConnected()) {
+            if (!isLayoutSnapshotSupported()) {
+                for (PageData pageData : pageDataList) {
+                    writePageMessage(pageData);
+
+                    for (Sensor sensor : pageData.getSensorList()) {
+                        writeSensorMessage(sensor, (byte) pageData.getUniqueId());
+                    }
+                }
+
+                displayLayoutState.setKnown(true);
+                return;
+            }
+
+            final byte[] layout = encodeLayout(pageDataList, true);
+            byte[] payload = layout;
+            byte flags = 0x00;
+            if (layoutCompressionEnabled && negotiatedCapabilities.isLayoutCompressionSupported()) {
+                byte[] compressed = deflate(layout);
+                if (compressed.length < layout.length) {
+                    payload = compressed;
+                    flags |= LayoutSnapshotDataPositions.FLAG_DEFLATE;
+                }
+            }
+
+            // Always send at least one chunk so that an empty layout is still received
+            final int chunkCount = Math.max(1, (payload.length + LayoutSnapshotDataPositions.MAX_PAYLOAD_BYTES - 1) /
+                    LayoutSnapshotDataPositions.MAX_PAYLOAD_BYTES);
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                final int payloadOffset = chunk * LayoutSnapshotDataPositions.MAX_PAYLOAD_BYTES;
+                final int payloadLength = Math.min(LayoutSnapshotDataPositions.MAX_PAYLOAD_BYTES,
+                        payload.length - payloadOffset);
+
+                byte[] message = getEncodeBuffer();
+                message[MESSAGE_TYPE_POS] = ExtendedMessageType.LAYOUT_SNAPSHOT;
+                message[LayoutSnapshotDataPositions.FLAGS_POS] = flags;
+                writeToMessage(message, LayoutSnapshotDataPositions.CHUNK_INDEX_POS, chunk);
+                writeToMessage(message, LayoutSnapshotDataPositions.CHUNK_COUNT_POS, chunkCount);
+                writeToMessage(message, LayoutSnapshotDataPositions.PAYLOAD_LENGTH_POS, payloadLength);
+                writeToMessage(message, LayoutSnapshotDataPositions.UNCOMPRESSED_LENGTH_POS, layout.length);
+                System.arraycopy(payload, payloadOffset, message, LayoutSnapshotDataPositions.PAYLOAD_POS,
+                        payloadLength);
+                sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            }
+
+            Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent Layout Snapshot: [PAGES: " + pageDataList.size() +
+                    "], [BYTES: " + layout.length + " -> " + payload.length + "], [CHUNKS: " + chunkCount + "]");
+
+            // The hardware monitor now holds this layout
+            recordLayout(pageDataList);
+            displayLayoutState.setKnown(true);
+            layoutHash = computeLayoutHash(pageDataList);
+            writeLayoutHash(layoutHash);
+        } else {
+            Logger.log(LogLevel.ERROR, LOGGER_TAG,
+                    "Failed to send Layout Snapshot because socket is not connected");
+        }
+    }
+
+    /**
+     * Write only the messages needed to change the layout that the hardware monitor holds into the layout of the given
+     * pages. Pages and sensors that are no longer present are removed, new ones are set-up, changed ones are set-up
+     * again and sensors that have only moved or been resized are sent a transformation message. If it is not known
+     * what layout the hardware monitor holds, the whole layout is written instead.
+     *
+     * @param pageDataList The pages that the hardware monitor should hold
+     * @since 1.0
+     */
+    public void writeLayoutChanges(List<PageData> pageDataList) {
+        if (socketChannel != null && socketChannel.isConnected()) {
+            if (!displayLayoutState.isKnown() || layoutResyncRequired) {
+                layoutResyncRequired = false;
+                displayLayoutState.clear();
+                writeLayoutSnapshot(pageDataList);
+                return;
+            }
+
+            int numMessages = 0;
+
+            // Remove the pages that are not in the new layout
+            Set<Byte> newPageIds = new HashSet<>();
+            for (PageData pageData : pageDataList) {
+                newPageIds.add((byte) pageData.getUniqueId());
+            }
+
+            for (Byte pageId : new ArrayList<>(displayLayoutState.getPageIds())) {
+                if (!newPageIds.contains(pageId)) {
+                    writeRemovePageMessage(pageId);
+                    numMessages++;
+                }
+            }
+
+            for (PageData pageData : pageDataList) {
+                final byte pageId = (byte) pageData.getUniqueId();
+                byte[] message = getEncodeBuffer();
+                writePageSetupMessage(pageData, message);
+                if (!Arrays.equals(message, displayLayoutState.getPage(pageId))) {
+                    writePageMessage(pageData);
+                    numMessages++;
+                }
+
+                // Remove the sensors that are no longer on the page
+                Set<Byte> newSensorIds = new HashSet<>();
+                for (Sensor sensor : pageData.getSensorList()) {
+                    newSensorIds.add((byte) sensor.getUniqueId());
+                }
+
+                for (Byte sensorId : new ArrayList<>(displayLayoutState.getSensorIds(pageId))) {
+                    if (!newSensorIds.contains(sensorId)) {
+                        writeRemoveSensorMessage(sensorId, pageId);
+                        numMessages++;
+                    }
+                }
+
+                for (Sensor sensor : pageData.getSensorList()) {
+                    byte[] knownMessage = displayLayoutState.getSensor(pageId, (byte) sensor.getUniqueId());
+                    message = getEncodeBuffer();
+                    writeSensorSetupMessage(sensor, pageId, message);
+                    writeToMessage(message, SensorDataPositions.INITIAL_VALUE_POS, 0.0f);
+
+                    if (knownMessage == null) {
+                        writeSensorMessage(sensor, pageId);
+                        numMessages++;
+                    } else if (!Arrays.equals(message, knownMessage)) {
+                        // A sensor that has only been moved or resized does not need to be set-up again
+                        if (equalsIgnoringTransformation(message, knownMessage)) {
+                            writeSensorTransformationMessage(sensor, pageId);
+                        } else {
+                            writeSensorMessage(sensor, pageId);
+                        }
+                        numMessages++;
+                    }
+                }
+            }
+
+            Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Sent Layout Changes: [PAGES: " + pageDataList.size() +
+                    "], [MESSAGES: " + numMessages + "]");
+            layoutHash = computeLayoutHash(pageDataList);
+            writeLayoutHash(layoutHash);
+        } else {
+            Logger.log(LogLevel.ERROR, LOGGER_TAG,
+                    "Failed to send Layout Changes because socket is not connected");
+        }
+    }
+
+    /**
+     * Record that the hardware monitor holds the layout of the given pages, without sending anything. Used once a full
+     * layout has been sent, or when the hardware monitor has reported that it already holds the layout.
+     *
+     * @param pageDataList The pages the hardware monitor holds
+     * @since 1.0
+     */
+    public void setDisplayLayout(List<PageData> pageDataList) {
+        displayLayoutState.clear();
+        recordLayout(pageDataList);
+        displayLayoutState.setKnown(true);
+    }
+
+    public boolean isDisplayLayoutKnown() {
+        return displayLayoutState.isKnown() && !layoutResyncRequired;
+    }
+
+    /**
+     * Resend the whole layout of the current save after layout messages were dropped by the network writer. Runs on
+     * the JavaFX thread once the writers queue has drained.
+     *
+     * @since 1.0
+     */
+    private void resyncLayout() {
+        final SaveManager saveManager = SaveManager.getInstance();
+        if (isConnected() && layoutResyncRequired && saveManager.containsSaveData()) {
+            Logger.log(LogLevel.INFO, LOGGER_TAG, "Resending layout after layout messages were dropped");
+            writeLayoutChanges(saveManager.getSaveData().getPageDataList());
+        }
+    }
+
+    private void recordLayout(List<PageData> pageDataList) {
+        for (PageData pageData : pageDataList) {
+            final byte pageId = (byte) pageData.getUniqueId();
+            byte[] message = getEncodeBuffer();
+            writePageSetupMessage(pageData, message);
+            displayLayoutState.putPage(pageId, message);
+
+            for (Sensor sensor : pageData.getSensorList()) {
+                message = getEncodeBuffer();
+                writeSensorSetupMessage(sensor, pageId, message);
+                recordSensorSetupMessage(pageId, message);
+            }
+        }
+    }
+
+    /**
+     * Tell the hardware monitor the hash of the layout it holds, so that it can echo it back when reconnecting. Does
+     * nothing if not connected or if the hardware monitor does not support layout hashes.
+     *
+     * @param layoutHash Hash of the layout as computed by computeLayoutHash
+     * @since 1.0
+     */
+    public void writeLayoutHash(int layoutHash) {
+        // A hash must never claim a layout that the hardware monitor may not have received in full
+        if (socketChannel != null && socketChannel.isConnected() && isLayoutSnapshotSupported() &&
+                !layoutResyncRequired) {
+            byte[] message = getEncodeBuffer();
+
+            message[MESSAGE_TYPE_POS] = ExtendedMessageType.LAYOUT_HASH;
+            writeToMessage(message, LayoutHashDataPositions.HASH_POS, layoutHash);
+            sendMessage(message, 0, MESSAGE_NUM_BYTES);
+            displayLayoutHash = layoutHash;
+        }
+    }
+
+    /**
+     * Recompute the hash of the layout of the current save. Must be called on the JavaFX thread whenever a different
+     * save is opened. If the hardware monitor holds the layout of the save, it is sent the new hash so that it can echo
+     * it back when reconnecting.
+     *
+     * @since 1.0
+     */
+    public void updateLayoutHash() {
+        layoutHashUpdateQueued = false;
+        final SaveManager saveManager = SaveManager.getInstance();
+        layoutHash = saveManager.containsSaveData() ?
+                computeLayoutHash(saveManager.getSaveData().getPageDataList()) : LayoutHashDataPositions.NO_LAYOUT_HASH;
+
+        if (layoutHash != LayoutHashDataPositions.NO_LAYOUT_HASH && layoutHash != displayLayoutHash &&
+                isDisplayLayoutKnown()) {
+            writeLayoutHash(layoutHash);
+        }
+    }
+
+    /**
+     * Recompute the layout hash once the current edit has been applied to the save. Edits write their layout message
+     * before the page or sensor is changed in the save, so the hash is computed later on the JavaFX thread. Several
+     * edits made together only compute the hash once.
+     *
+     * @since 1.0
+     */
+    private void queueLayoutHashUpdate() {
+        if (!layoutHashUpdateQueued) {
+            layoutHashUpdateQueued = true;
+            Platform.runLater(this::updateLayoutHash);
+        }
+    }
+
+    /**
+     * Compute a stable hash of the layout of the given pages. The hash covers everything sent in the PAGE_SETUP and
+     * SENSOR_SETUP messages except the current sensor values, so it only changes when the layout changes.
+     *
+     * @param pageDataList The pages to compute the hash of
+     * @return The layout hash, never NO_LAYOUT_HASH
+     * @since 1.0
+     */
+    public int computeLayoutHash(List<PageData> pageDataList) {
+        CRC32 crc = new CRC32();
+        crc.update(encodeLayout(pageDataList, false));
+        final int layoutHash = (int) crc.getValue();
+        return layoutHash == LayoutHashDataPositions.NO_LAYOUT_HASH ? 1 : layoutHash;
+    }
+
+    /**
+     * Check if the connected hardware monitor reported that it already holds the layout of the given pages
+     *
+     * @param pageDataList The pages to check
+     * @return True if the hardware monitors layout matches the pages
+     * @since 1.0
+     */
+    public boolean isDisplayLayoutCurrent(List<PageData> pageDataList) {
+        return displayLayoutHash != LayoutHashDataPositions.NO_LAYOUT_HASH &&
+                displayLayoutHash == computeLayoutHash(pageDataList);
+    }
+
+    public NegotiatedCapabilities getNegotiatedCapabilities() {
+        return negotiatedCapabilities;
+    }
+
+    public boolean isLayoutSnapshotSupported() {
+        return negotiatedCapabilities.isLayoutSnapshotSupported();
+    }
+
+    public boolean isLayoutCompressionEnabled() {
+        return layoutCompressionEnabled;
+    }
+
+    public void setLayoutCompressionEnabled(boolean layoutCompressionEnabled) {
+        this.layoutCompressionEnabled = layoutCompressionEnabled;
+    }
+
+    public boolean isUdpStreamingEnabled() {
+        return udpStreamingEnabled;
+    }
+
+    public void setUdpStreamingEnabled(boolean udpStreamingEnabled) {
+        this.udpStreamingEnabled = udpStreamingEnabled;
+    }
+
+    public boolean isStreamingSensorValues() {
+        return sensorValueStreamer != null;
+    }
+
+    public boolean isVariableFramingSupported() {
+        return negotiatedCapabilities.isVariableFramingSupported();
+    }
+
+    public boolean isBatchedSensorValuesSupported() {
+        return negotiatedCapabilities.isBatchedSensorValuesSupported();
+    }
+
+    /**
+     * Source channel values can only be sent in batched messages or datagrams, as a DATA message carries a sensor GUI
+     * ID
+     *
+     * @return True if sensor values should be sent per source channel
+     * @since 1.0
+     */
+    public boolean isSourceChannelsEnabled() {
+        final NegotiatedCapabilities capabilities = negotiatedCapabilities;
+        return capabilities.isSourceChannelsSupported() && capabilities.isBatchedSensorValuesSupported();
+    }
+
     private void sendHandshakeMessage() throws SocketException, UnknownHostException {
         final AddressInformation siteLocalAddress = NetworkUtils.getMyIpAddress();
-        byte[] message = new byte[MESSAGE_NUM_BYTES];
+
+        byte[] message = getEncodeBuffer();
 
         message[MESSAGE_TYPE_POS] = MessageType.CONNECTION_REQUEST_MESSAGE;
         message[ConnectionRequestDataPositions.MAJOR_VERSION_POS] = VERSION_MAJOR;
@@ -310,6 +822,9 @@ public class NetworkClient {
         message[ConnectionRequestDataPositions.FORCE_CONNECT] = 0x00;
         writeBytesToMessage(message, ConnectionRequestDataPositions.IP4_ADDRESS_POS, siteLocalAddress.getIp4Address(), IP4_ADDRESS_NUM_BYTES);
         writeStringToMessage(message, ConnectionRequestDataPositions.HOSTNAME_POS, siteLocalAddress.getHostname(), NAME_STRING_NUM_BYTES);
+        // The hash of the layout this editor holds tells the monitor if it is the one it last received
+        writeToMessage(message, LayoutHashDataPositions.REQUEST_HASH_POS, layoutHash);
+        writeToMessage(message, CapabilityDataPositions.REQUEST_CAPABILITIES_POS, EDITOR_CAPABILITIES);
 
         sendMessage(message, 0, MESSAGE_NUM_BYTES);
         Logger.log(LogLevel.INFO, LOGGER_TAG, "Sent connection request message");
@@ -457,8 +972,8 @@ public class NetworkClient {
     }
 
     private void sendDisconnectMessage() {
-        if (socket != null && socket.isConnected()) {
-            byte[] message = new byte[MESSAGE_NUM_BYTES];
+        if (socketChannel != null && socketChannel.isConnected()) {
+            byte[] message = getEncodeBuffer();
 
             message[MESSAGE_TYPE_POS] = MessageType.DISCONNECT_MESSAGE;
             sendMessage(message, 0, MESSAGE_NUM_BYTES);
@@ -467,8 +982,150 @@ public class NetworkClient {
         }
     }
 
+    private void recordSensorSetupMessage(byte pageId, byte[] message) {
+        // Sensor values change all the time so they are not part of the recorded layout
+        writeToMessage(message, SensorDataPositions.INITIAL_VALUE_POS, 0.0f);
+        displayLayoutState.putSensor(pageId, message[SensorDataPositions.ID_POS], message);
+    }
+
+    private static boolean equalsIgnoringTransformation(byte[] lhs, byte[] rhs) {
+        byte[] lhsCopy = lhs.clone();
+        byte[] rhsCopy = rhs.clone();
+        for (byte[] message : new byte[][]{lhsCopy, rhsCopy}) {
+            message[SensorDataPositions.ROW_POS] = 0;
+            message[SensorDataPositions.COLUMN_POS] = 0;
+            message[SensorDataPositions.ROW_SPAN_POS] = 0;
+            message[SensorDataPositions.COLUMN_SPAN_POS] = 0;
+        }
+
+        return Arrays.equals(lhsCopy, rhsCopy);
+    }
+
+    private byte[] encodeLayout(List<PageData> pageDataList, boolean includeValues) {
+        // Encode the set-up message of every page and sensor into a single stream
+        ByteArrayOutputStream layoutStream = new ByteArrayOutputStream();
+        for (PageData pageData : pageDataList) {
+            byte[] message = getEncodeBuffer();
+            writePageSetupMessage(pageData, message);
+            layoutStream.write(message, 0, MESSAGE_NUM_BYTES);
+
+            for (Sensor sensor : pageData.getSensorList()) {
+                message = getEncodeBuffer();
+                writeSensorSetupMessage(sensor, (byte) pageData.getUniqueId(), message);
+                if (!includeValues) {
+                    writeToMessage(message, SensorDataPositions.INITIAL_VALUE_POS, 0.0f);
+                }
+
+                layoutStream.write(message, 0, MESSAGE_NUM_BYTES);
+            }
+        }
+
+        return layoutStream.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
+        byte[] buffer = new byte[MESSAGE_NUM_BYTES];
+        while (!deflater.finished()) {
+            outputStream.write(buffer, 0, deflater.deflate(buffer));
+        }
+
+        deflater.end();
+        return outputStream.toByteArray();
+    }
+
+    public int getOutboundQueueDepth() {
+        NetworkWriter writer = networkWriter;
+        return writer == null ? 0 : writer.getQueueDepth();
+    }
+
+    public long getSentMessageCount() {
+        NetworkWriter writer = networkWriter;
+        return writer == null ? 0 : writer.getSentMessageCount();
+    }
+
+    public long getDroppedMessageCount() {
+        NetworkWriter writer = networkWriter;
+        return writer == null ? 0 : writer.getDroppedMessageCount();
+    }
+
+    private void openSensorValueStreamer(ConnectionInformation connectionInformation, int udpPort) {
+        if (udpPort <= 0) {
+            Logger.log(LogLevel.WARNING, LOGGER_TAG, "Hardware monitor supports UDP streaming but did not provide a " +
+                    "port, sending sensor values over TCP");
+            return;
+        }
+
+        try {
+            sensorValueStreamer = new SensorValueStreamer(new InetSocketAddress(
+                    InetAddress.getByAddress(connectionInformation.getIp4Address()), udpPort));
+            Logger.log(LogLevel.INFO, LOGGER_TAG, "Streaming sensor values over UDP to port " + udpPort);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.WARNING, LOGGER_TAG, "Failed to open UDP channel, sending sensor values over TCP");
+        }
+    }
+
+    private void closeSensorValueStreamer() {
+        if (sensorValueStreamer != null) {
+            sensorValueStreamer.close();
+            sensorValueStreamer = null;
+        }
+    }
+
+    private void stopNetworkWriter() {
+        NetworkWriter writer = networkWriter;
+        if (writer != null) {
+            networkWriter = null;
+            writer.stopThread();
+        }
+    }
+
+    public long getAllocatedMessageBufferCount() {
+        return messageBufferPool.getAllocatedBufferCount();
+    }
+
+    /**
+     * Get the encode buffer of the calling thread, cleared ready for a new message. The buffer is only valid until the
+     * next call on the same thread.
+     *
+     * @return Zeroed array of MESSAGE_NUM_BYTES
+     * @since 1.0
+     */
+    private static byte[] getEncodeBuffer() {
+        byte[] message = ENCODE_BUFFER.get();
+        Arrays.fill(message, (byte) 0);
+        return message;
+    }
+
     private void sendMessage(byte[] message, int offset, int length) {
-        socketWriter.write(message, offset, length);
-        socketWriter.flush();
+        NetworkWriter writer = networkWriter;
+        if (writer != null && !queueMessage(writer, message, offset, length, false)) {
+            // The hardware monitor has missed a control or layout message, so the recorded layout cannot be trusted
+            layoutResyncRequired = true;
+            displayLayoutHash = LayoutHashDataPositions.NO_LAYOUT_HASH;
+        }
+    }
+
+    private void sendSensorValueMessage(byte[] message, int offset, int length) {
+        NetworkWriter writer = networkWriter;
+        if (writer != null) {
+            queueMessage(writer, message, offset, length, true);
+        }
+    }
+
+    private boolean queueMessage(NetworkWriter writer, byte[] message, int offset, int length, boolean droppable) {
+        ByteBuffer buffer = messageBufferPool.acquire();
+        if (variableFramingEnabled) {
+            MessageFraming.writeFrame(buffer, message, offset, length);
+        } else {
+            buffer.put(message, offset, length);
+        }
+        buffer.flip();
+        return writer.write(buffer, droppable);
     }
 }
\ No newline at end of file
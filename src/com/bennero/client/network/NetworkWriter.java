@@ -0,0 +1,248 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NetworkWriter is a thread that owns the writing side of the connection to a hardware monitor. Messages are placed on
+ * a bounded queue by any thread and written to the socket channel by this thread, several at a time using gathering
+ * writes. Queued messages are buffers from a MessageBufferPool and are released back to it once written or dropped.
+ * This means that a slow or stalled hardware monitor can never block the JavaFX thread or the sensor poll.
+ *
+ * Only sensor value messages may be dropped. They are dropped and counted once the queue holds the queue capacity, as
+ * the next poll sends newer values anyway. Control and layout messages are always queued, as the editor assumes the
+ * hardware monitor received every one of them. As a safety limit they are only dropped if the queue grows far beyond
+ * its capacity, in which case the drop listener is told once the queue has drained so that the layout can be resent.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see NetworkClient
+ * @since 1.0
+ */
+public class NetworkWriter extends Thread {
+    // Tag for logging
+    private static final String TAG = NetworkWriter.class.getSimpleName();
+
+    // Maximum number of queued messages written by a single gathering write
+    static final int MAX_GATHERED_MESSAGES = 16;
+    private static final int POLL_TIMEOUT_MS = 100;
+    private static final int STOP_TIMEOUT_MS = 1000;
+
+    // How many times the queue capacity control messages may fill before they are dropped
+    private static final int CONTROL_QUEUE_CAPACITY_MULTIPLIER = 16;
+
+    /**
+     * Told once the queue has drained after control messages were dropped, the hardware monitor no longer holds what
+     * the editor thinks it does
+     */
+    public interface ControlDropListener {
+        void onControlMessagesDropped();
+    }
+
+    private final SocketChannel socketChannel;
+    private final MessageBufferPool bufferPool;
+    private final ArrayBlockingQueue<ByteBuffer> queue;
+    private final int queueCapacity;
+    private final ControlDropListener controlDropListener;
+    private final ByteBuffer[] gatherBuffers;
+    private final AtomicLong sentMessages;
+    private final AtomicLong droppedMessages;
+    private volatile boolean run;
+    private volatile boolean dropping;
+    private volatile boolean controlDropped;
+    private volatile boolean loggedClosed;
+
+    public NetworkWriter(SocketChannel socketChannel, MessageBufferPool bufferPool, int queueCapacity,
+                         ControlDropListener controlDropListener) {
+        super(TAG);
+        setDaemon(true);
+        this.socketChannel = socketChannel;
+        this.bufferPool = bufferPool;
+        // The queue is allocated up front at the safety limit so that queueing a message does not allocate
+        this.queue = new ArrayBlockingQueue<>(queueCapacity * CONTROL_QUEUE_CAPACITY_MULTIPLIER);
+        this.queueCapacity = queueCapacity;
+        this.controlDropListener = controlDropListener;
+        this.gatherBuffers = new ByteBuffer[MAX_GATHERED_MESSAGES];
+        this.sentMessages = new AtomicLong();
+        this.droppedMessages = new AtomicLong();
+        this.run = true;
+        this.dropping = false;
+        this.controlDropped = false;
+        this.loggedClosed = false;
+    }
+
+    /**
+     * Queue a message to be written to the hardware monitor. The buffer must have been acquired from the writers buffer
+     * pool and flipped ready for reading. Ownership of the buffer passes to the writer, which releases it back to the
+     * pool once it has been written or dropped, so the caller must not use it after this call.
+     *
+     * @param message   Buffer containing the message bytes
+     * @param droppable True for sensor value messages, which are dropped if the queue is full. Control and layout
+     *                  messages are always queued unless the safety limit has been reached.
+     * @return True if the message was queued, false if it was dropped because the queue is full or the writer stopped
+     * @since 1.0
+     */
+    public boolean write(ByteBuffer message, boolean droppable) {
+        if (!run) {
+            bufferPool.release(message);
+
+            // Only log the first message so that writes after a write failure do not flood the log
+            if (!loggedClosed) {
+                loggedClosed = true;
+                Logger.log(LogLevel.WARNING, TAG, "Writer has stopped, discarding messages written to it");
+            }
+
+            return false;
+        }
+
+        final int capacity = droppable ? queueCapacity : queueCapacity * CONTROL_QUEUE_CAPACITY_MULTIPLIER;
+        if (queue.size() < capacity && queue.offer(message)) {
+            dropping = false;
+            return true;
+        }
+
+        bufferPool.release(message);
+        droppedMessages.incrementAndGet();
+
+        if (!droppable && !controlDropped) {
+            controlDropped = true;
+            Logger.log(LogLevel.ERROR, TAG, "Outbound queue full, dropping control messages, the layout will be " +
+                    "resent once the queue has drained");
+        }
+
+        // Only log the first message of a run of drops so that a stalled monitor does not flood the log
+        if (!dropping) {
+            dropping = true;
+            Logger.log(LogLevel.WARNING, TAG, "Outbound queue full, dropping messages (queued: " + queue.size() +
+                    ", dropped so far: " + droppedMessages.get() + ")");
+        }
+
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSentMessageCount() {
+        return sentMessages.get();
+    }
+
+    public long getDroppedMessageCount() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Stop the writer once all of the messages that have already been queued have been written (or the timeout has
+     * been reached).
+     *
+     * @since 1.0
+     */
+    public void stopThread() {
+        run = false;
+
+        try {
+            join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            // Keep writing until asked to stop and everything that was queued before that has been written
+            while (run || !queue.isEmpty()) {
+                ByteBuffer first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    notifyControlDropped();
+                    continue;
+                }
+
+                gatherBuffers[0] = first;
+                int count = 1;
+                ByteBuffer next;
+                while (count < MAX_GATHERED_MESSAGES && (next = queue.poll()) != null) {
+                    gatherBuffers[count++] = next;
+                }
+
+                writeFully(count);
+                sentMessages.addAndGet(count);
+
+                for (int i = 0; i < count; i++) {
+                    bufferPool.release(gatherBuffers[i]);
+                    gatherBuffers[i] = null;
+                }
+
+                if (queue.isEmpty()) {
+                    notifyControlDropped();
+                }
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            if (run) {
+                e.printStackTrace();
+                Logger.log(LogLevel.ERROR, TAG, "Failed to write to hardware monitor, stopping writer");
+            }
+        }
+
+        run = false;
+
+        ByteBuffer remaining;
+        while ((remaining = queue.poll()) != null) {
+            bufferPool.release(remaining);
+        }
+    }
+
+    private void notifyControlDropped() {
+        if (controlDropped && run) {
+            controlDropped = false;
+            if (controlDropListener != null) {
+                controlDropListener.onControlMessagesDropped();
+            }
+        }
+    }
+
+    private void writeFully(int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            socketChannel.write(gatherBuffers, offset, count - offset);
+
+            // Skip past the buffers that have been completely written
+            while (offset < count && !gatherBuffers[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+    }
+}
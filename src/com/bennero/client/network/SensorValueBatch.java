@@ -0,0 +1,92 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import java.util.Arrays;
+
+/**
+ * SensorValueBatch collects the sensor values that have changed during one sensor poll so that they can be written to
+ * a hardware monitor together. If the same sensor changes more than once before the batch is written, only the latest
+ * value is kept. The batch is indexed by sensor GUI ID, or by source channel ID when the hardware monitor supports
+ * source channels (both are a single byte on the network), so adding a value does not allocate.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see NetworkClient#writeSensorValues(SensorValueBatch)
+ * @since 1.0
+ */
+public class SensorValueBatch {
+    private static final int NUM_SENSOR_IDS = 256;
+
+    private final int[] sensorIds;
+    private final float[] values;
+    private final int[] entryIndex;
+    private int size;
+
+    public SensorValueBatch() {
+        sensorIds = new int[NUM_SENSOR_IDS];
+        values = new float[NUM_SENSOR_IDS];
+        entryIndex = new int[NUM_SENSOR_IDS];
+        Arrays.fill(entryIndex, -1);
+        size = 0;
+    }
+
+    public void put(int sensorId, float value) {
+        final int key = sensorId & 0xFF;
+        int index = entryIndex[key];
+
+        // Only add a new entry if the sensor is not already in the batch, otherwise replace the old value
+        if (index == -1) {
+            index = size++;
+            entryIndex[key] = index;
+            sensorIds[index] = sensorId;
+        }
+
+        values[index] = value;
+    }
+
+    public int getSensorId(int index) {
+        return sensorIds[index];
+    }
+
+    public float getValue(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            entryIndex[sensorIds[i] & 0xFF] = -1;
+        }
+
+        size = 0;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import com.bennero.client.messages.ExtendedMessageType;
+import com.bennero.client.messages.SensorValueDatagramDataPositions;
+import com.bennero.client.messages.SensorValuesDataPositions;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+import static com.bennero.common.networking.NetworkUtils.writeToMessage;
+
+/**
+ * SensorValueStreamer sends sensor values to a hardware monitor over UDP. Sensor values only matter until the next
+ * value replaces them, so sending them over UDP means that a lost packet delays only the values in it, rather than
+ * holding up every message behind it on the TCP connection. Layout and control messages are still sent over TCP. Each
+ * poll is sent with a new sequence number so that the hardware monitor can drop values that arrive late. The channel is
+ * non-blocking: if a datagram cannot be sent immediately it is dropped, because the next poll will carry newer values.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorValueDatagramDataPositions
+ * @since 1.0
+ */
+public class SensorValueStreamer {
+    private static final String TAG = SensorValueStreamer.class.getSimpleName();
+
+    private final DatagramChannel datagramChannel;
+    private final byte[] datagram;
+    private final ByteBuffer datagramBuffer;
+    private int sequence;
+    private long sentDatagrams;
+    private long droppedDatagrams;
+
+    public SensorValueStreamer(InetSocketAddress address) throws IOException {
+        datagramChannel = DatagramChannel.open();
+        datagramChannel.configureBlocking(false);
+        datagramChannel.connect(address);
+        datagram = new byte[MESSAGE_NUM_BYTES];
+        datagramBuffer = ByteBuffer.allocateDirect(MESSAGE_NUM_BYTES);
+        sequence = 0;
+        sentDatagrams = 0;
+        droppedDatagrams = 0;
+    }
+
+    /**
+     * Send all of the values in a batch under a new sequence number, in as few datagrams as possible
+     *
+     * @param batch The sensor values to send
+     * @since 1.0
+     */
+    public void send(SensorValueBatch batch) {
+        sequence++;
+
+        int entries = 0;
+        Arrays.fill(datagram, (byte) 0);
+        for (int i = 0; i < batch.size(); i++) {
+            final int entryPos = SensorValueDatagramDataPositions.FIRST_ENTRY_POS +
+                    (entries * SensorValuesDataPositions.ENTRY_NUM_BYTES);
+            datagram[entryPos + SensorValuesDataPositions.ENTRY_ID_OFFSET] = (byte) batch.getSensorId(i);
+            writeToMessage(datagram, entryPos + SensorValuesDataPositions.ENTRY_VALUE_OFFSET, batch.getValue(i));
+            entries++;
+
+            // Send the datagram once it is full or there are no more values left to add
+            if (entries == SensorValueDatagramDataPositions.MAX_ENTRIES || i == batch.size() - 1) {
+                datagram[MESSAGE_TYPE_POS] = ExtendedMessageType.SENSOR_VALUES_DATAGRAM;
+                writeToMessage(datagram, SensorValueDatagramDataPositions.SEQUENCE_POS, sequence);
+                datagram[SensorValueDatagramDataPositions.COUNT_POS] = (byte) entries;
+                sendDatagram(SensorValueDatagramDataPositions.FIRST_ENTRY_POS +
+                        (entries * SensorValuesDataPositions.ENTRY_NUM_BYTES));
+
+                Arrays.fill(datagram, (byte) 0);
+                entries = 0;
+            }
+        }
+    }
+
+    public long getSentDatagramCount() {
+        return sentDatagrams;
+    }
+
+    public long getDroppedDatagramCount() {
+        return droppedDatagrams;
+    }
+
+    public void close() {
+        try {
+            datagramChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void sendDatagram(int length) {
+        datagramBuffer.clear();
+        datagramBuffer.put(datagram, 0, length);
+        datagramBuffer.flip();
+
+        try {
+            if (datagramChannel.write(datagramBuffer) == 0) {
+                droppedDatagrams++;
+            } else {
+                sentDatagrams++;
+            }
+        } catch (IOException e) {
+            // The hardware monitor may not be listening yet or the network may be down, the next poll will try again
+            droppedDatagrams++;
+            Logger.log(LogLevel.DEBUG, TAG, "Failed to send sensor values datagram: " + e.getMessage());
+        }
+    }
+}
@@ -25,6 +25,7 @@ package com.bennero.client.pages;
 
 import com.bennero.client.config.SaveManager;
 import com.bennero.client.core.ApplicationCore;
+import com.bennero.client.core.SensorManager;
 import com.bennero.client.network.NetworkClient;
 import com.bennero.client.states.PageEditorStateData;
 import com.bennero.client.states.PageOverviewStateData;
@@ -193,9 +194,15 @@ public class PageEditor extends StackPane {
                     (EventHandler<Event>) event ->
                     {
                         saveManager.getSaveData().removePageData(pageData);
+
+                        // The sensors on the page no longer need to be read
+                        for (Sensor sensor : pageData.getSensorList()) {
+                            SensorManager.getInstance().unregisterSensor(sensor);
+                        }
+
                         ApplicationCore.s_setApplicationState(new PageOverviewStateData());
                     },
-                    event -> saveManager.getSaveData().save());
+                    event -> saveManager.getSaveData().saveNow());
             pageOptions.show();
         });
 
@@ -300,11 +307,12 @@ public class PageEditor extends StackPane {
 
                             if (alert.getResult() == ButtonType.YES) {
                                 pageData.removeSensor(sensor);
+                                SensorManager.getInstance().unregisterSensor(sensor);
 
                                 borderPane.getChildren().remove(sensorPane);
                                 initGrid();
                                 placeSensors(pageData);
-                                saveManager.getSaveData().save();
+                                saveManager.getSaveData().saveSensorRemoved(pageData, sensor);
 
                                 // Send network message to remove the sensor
                                 NetworkClient.getInstance().writeRemoveSensorMessage((byte) sensor.getUniqueId(), (byte) pageData.getUniqueId());
@@ -353,7 +361,7 @@ public class PageEditor extends StackPane {
                                 newCol,
                                 newCol + sensor.getColumnSpan());
 
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().saveSensorTransform(pageData, sensor);
 
                         // Send network message to remove the sensor
                         NetworkClient.getInstance().writeSensorTransformationMessage(sensor,
@@ -385,7 +393,7 @@ public class PageEditor extends StackPane {
 
                     // If resized, update the hardware monitor to display it and also save the layout
                     if (resized) {
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().saveSensorTransform(pageData, sensor);
 
                         // Send network message to remove the sensor
                         NetworkClient.getInstance().writeSensorTransformationMessage(sensor,
@@ -420,26 +428,26 @@ public class PageEditor extends StackPane {
                         if (alert.getResult() == ButtonType.YES) {
                             headerPane.getChildren().remove(titleStackPane);
                             pageData.setTitleEnabled(false);
-                            saveManager.getSaveData().save();
+                            saveManager.getSaveData().savePage(pageData);
                             networkClient.writePageMessage(pageData);
                         }
                     },
                     (observableValue, integer, t1) ->
                     {
                         pageData.setTitleAlignment(t1);
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().savePage(pageData);
                         networkClient.writePageMessage(pageData);
                     },
                     (observableValue, color, t1) ->
                     {
                         pageData.setTitleColour(t1);
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().savePage(pageData);
                         networkClient.writePageMessage(pageData);
                     },
                     (observableValue, s, t1) ->
                     {
                         pageData.setTitle(t1);
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().savePage(pageData);
                         networkClient.writePageMessage(pageData);
                     }));
 
@@ -464,26 +472,26 @@ public class PageEditor extends StackPane {
                         if (alert.getResult() == ButtonType.YES) {
                             headerPane.getChildren().remove(subtitleStackPane);
                             pageData.setSubtitleEnabled(false);
-                            saveManager.getSaveData().save();
+                            saveManager.getSaveData().savePage(pageData);
                             networkClient.writePageMessage(pageData);
                         }
                     },
                     (observableValue, integer, t1) ->
                     {
                         pageData.setSubtitleAlignment(t1);
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().savePage(pageData);
                         networkClient.writePageMessage(pageData);
                     },
                     (observableValue, color, t1) ->
                     {
                         pageData.setSubtitleColour(t1);
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().savePage(pageData);
                         networkClient.writePageMessage(pageData);
                     },
                     (observableValue, s, t1) ->
                     {
                         pageData.setSubtitle(t1);
-                        saveManager.getSaveData().save();
+                        saveManager.getSaveData().savePage(pageData);
                         networkClient.writePageMessage(pageData);
                     }));
 
@@ -29,6 +29,7 @@ import com.bennero.client.config.SaveManager;
 import com.bennero.client.core.ApplicationCore;
 import com.bennero.client.core.CoreUtils;
 import com.bennero.client.core.Window;
+import com.bennero.client.core.SensorManager;
 import com.bennero.client.network.NetworkClient;
 import com.bennero.client.network.NetworkScanner;
 import com.bennero.client.states.PageEditorStateData;
@@ -171,13 +172,20 @@ public class PageOverview extends StackPane {
                     (observableValue, integer, t1) ->
                     {
                         saveManager.getSaveData().setSensorUpdateTime(t1);
+
+                        // Apply the new interval straight away rather than on the next launch
+                        SensorManager.getInstance().setPollInterval(t1);
                     }, (observableValue, integer, t1) ->
             {
                 saveManager.getSaveData().setSensorAnimationDuration(t1);
+            }, saveData.isBinary(), (observableValue, aBoolean, t1) ->
+            {
+                // Continue with the save converted to the chosen format
+                saveManager.convertCurrentSave(t1);
             }, event ->
             {
                 // Save config
-                saveManager.getSaveData().save();
+                saveManager.getSaveData().saveNow();
             });
             clientOptions.show();
         });
@@ -154,7 +154,7 @@ public class SensorEditor extends BorderPane {
                 // Attempting to add new sensor to page, check space first
                 if (pageData.isSpaceFree(sensor)) {
                     pageData.addSensor(sensor);
-                    saveManager.getSaveData().save();
+                    saveManager.getSaveData().saveNow();
 
                     // Send the page sensor data to the client
                     NetworkClient.getInstance().writeSensorMessage(sensor, (byte) pageData.getUniqueId());
@@ -168,7 +168,7 @@ public class SensorEditor extends BorderPane {
                 }
             } else {
                 // This is just a sensor edit, save and display page editor
-                saveManager.getSaveData().save();
+                saveManager.getSaveData().saveNow();
                 ApplicationCore.s_setApplicationState(new PageEditorStateData(pageData));
             }
         });
@@ -0,0 +1,173 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.sources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * KernelFileReader reads the pseudo files provided by the Linux kernel in /sys and /proc. Files are kept open and read
+ * from the start each time with a positional read, which makes the kernel regenerate their content, so polling does
+ * not reopen them. Every file is read into one reusable buffer, and numbers are parsed straight from the buffer, so
+ * reading a file does not allocate. A reader is only used by one thread.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see LinuxSensorSource
+ * @since 1.0
+ */
+public class KernelFileReader {
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    private ByteBuffer buffer;
+
+    public KernelFileReader() {
+        buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    }
+
+    public static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Read the whole content of a kernel file. The buffer is grown if the content does not fit, which only happens
+     * the first time a large file is read.
+     *
+     * @param channel Open channel of the file
+     * @return Buffer holding the content from position zero up to its limit. Only valid until the next read
+     * @throws IOException If the file could not be read
+     * @since 1.0
+     */
+    public ByteBuffer read(FileChannel channel) throws IOException {
+        buffer.clear();
+        long position = 0;
+        int numRead;
+        while ((numRead = channel.read(buffer, position)) > 0) {
+            position += numRead;
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Read a file that holds a single integer, as most sysfs attributes do
+     *
+     * @param channel Open channel of the file
+     * @return The integer
+     * @throws IOException If the file could not be read
+     * @since 1.0
+     */
+    public long readLong(FileChannel channel) throws IOException {
+        ByteBuffer content = read(channel);
+        return nextLong(content);
+    }
+
+    /**
+     * Parse the next integer from the buffers position, skipping any spaces before it. The buffers position is left
+     * after the integer.
+     *
+     * @param content Buffer to parse
+     * @return The integer, or zero if there is not one before the end of the line
+     * @since 1.0
+     */
+    public static long nextLong(ByteBuffer content) {
+        while (content.hasRemaining() && content.get(content.position()) == ' ') {
+            content.get();
+        }
+
+        boolean negative = false;
+        if (content.hasRemaining() && content.get(content.position()) == '-') {
+            negative = true;
+            content.get();
+        }
+
+        long value = 0;
+        while (content.hasRemaining()) {
+            final byte character = content.get(content.position());
+            if (character < '0' || character > '9') {
+                break;
+            }
+
+            value = value * 10 + (character - '0');
+            content.get();
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Move the buffers position past the next space, skipping a label such as the name of a /proc/stat line
+     *
+     * @param content Buffer to parse
+     * @since 1.0
+     */
+    public static void skipToken(ByteBuffer content) {
+        while (content.hasRemaining() && content.get() != ' ') {
+        }
+    }
+
+    /**
+     * Move the buffers position to the start of the next line
+     *
+     * @param content Buffer to parse
+     * @since 1.0
+     */
+    public static void skipLine(ByteBuffer content) {
+        while (content.hasRemaining() && content.get() != '\n') {
+        }
+    }
+
+    /**
+     * Determine if the content at the buffers position starts with a prefix, without moving the position
+     *
+     * @param content Buffer to check
+     * @param prefix  ASCII prefix to look for
+     * @return True if the content starts with the prefix
+     * @since 1.0
+     */
+    public static boolean startsWith(ByteBuffer content, byte[] prefix) {
+        if (content.remaining() < prefix.length) {
+            return false;
+        }
+
+        final int position = content.position();
+        for (int i = 0; i < prefix.length; i++) {
+            if (content.get(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
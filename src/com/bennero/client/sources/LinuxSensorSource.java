@@ -0,0 +1,450 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.sources;
+
+import com.bennero.client.bootstrapper.SensorRequest;
+import com.bennero.common.SensorType;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LinuxSensorSource acquires sensor data on Linux without the bootstrapper. Temperatures, fan speeds, voltages and
+ * power draws are read from the hwmon devices in /sys/class/hwmon, core clocks from cpufreq, CPU loads from /proc/stat
+ * and memory usage from /proc/meminfo. Every file is opened once when the source is opened and kept open, and is read
+ * into a reusable buffer and parsed in place, so a poll does not reopen files or allocate. Only the files of active
+ * sensors are read.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see KernelFileReader
+ * @since 1.0
+ */
+public class LinuxSensorSource implements SensorSource {
+    private static final String LOGGER_TAG = LinuxSensorSource.class.getSimpleName();
+
+    private static final Path HWMON_PATH = Paths.get("/sys/class/hwmon");
+    private static final Path CPU_PATH = Paths.get("/sys/devices/system/cpu");
+    private static final Path PROC_STAT_PATH = Paths.get("/proc/stat");
+    private static final Path PROC_MEMINFO_PATH = Paths.get("/proc/meminfo");
+
+    // hwmon inputs are named <type><index>_input, for example temp1_input
+    private static final Pattern HWMON_INPUT_PATTERN = Pattern.compile("(temp|fan|in|power)(\\d+)_input");
+    private static final Pattern CPU_DIRECTORY_PATTERN = Pattern.compile("cpu(\\d+)");
+
+    private static final String CPU_HARDWARE_TYPE = "CPU";
+    private static final String MEMORY_HARDWARE_TYPE = "Memory";
+
+    private static final byte[] CPU_PREFIX = "cpu".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MEM_TOTAL_KEY = "MemTotal:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MEM_AVAILABLE_KEY = "MemAvailable:".getBytes(StandardCharsets.US_ASCII);
+
+    // The first eight fields of a /proc/stat cpu line are user, nice, system, idle, iowait, irq, softirq and steal
+    private static final int NUM_CPU_TIME_FIELDS = 8;
+    private static final int IDLE_FIELD = 3;
+    private static final int IOWAIT_FIELD = 4;
+
+    private static final float KIB_PER_GIB = 1024.0f * 1024.0f;
+
+    /**
+     * A sensor read from a sysfs file that holds a single integer, scaled to the unit of the sensor type
+     */
+    private static class SysfsInput {
+        private final FileChannel channel;
+        private final SensorRequest sensorRequest;
+        private final int sensorId;
+        private final float scale;
+
+        private SysfsInput(FileChannel channel, SensorRequest sensorRequest, int sensorId, float scale) {
+            this.channel = channel;
+            this.sensorRequest = sensorRequest;
+            this.sensorId = sensorId;
+            this.scale = scale;
+        }
+    }
+
+    private final KernelFileReader reader;
+    private final List<SysfsInput> sysfsInputs;
+    private FileChannel procStat;
+    private SensorRequest[] cpuLoadSensors;
+    private int[] cpuLoadSensorIds;
+    private long[] previousTotalTicks;
+    private long[] previousIdleTicks;
+    private FileChannel procMeminfo;
+    private SensorRequest memoryLoadSensor;
+    private SensorRequest memoryUsedSensor;
+    private int memoryLoadSensorId;
+    private int memoryUsedSensorId;
+    private int nextSensorId;
+    private boolean[] activeSensors;
+
+    public LinuxSensorSource() {
+        reader = new KernelFileReader();
+        sysfsInputs = new ArrayList<>();
+        nextSensorId = 0;
+        activeSensors = null;
+    }
+
+    @Override
+    public String getName() {
+        return "Linux hwmon/procfs";
+    }
+
+    @Override
+    public boolean open() {
+        if (!Files.isDirectory(HWMON_PATH) || !Files.isReadable(PROC_STAT_PATH) ||
+                !Files.isReadable(PROC_MEMINFO_PATH)) {
+            return false;
+        }
+
+        try {
+            // Open the files that every system has first, so that no sensors are added if they cannot be read
+            procStat = KernelFileReader.open(PROC_STAT_PATH);
+            procMeminfo = KernelFileReader.open(PROC_MEMINFO_PATH);
+            final int numCpuLines = countCpuLines();
+
+            addHwmonSensors();
+            addCpuClockSensors();
+            addCpuLoadSensors(numCpuLines);
+            addMemorySensors();
+        } catch (IOException e) {
+            e.printStackTrace();
+            Logger.log(LogLevel.ERROR, LOGGER_TAG, "Failed to open the Linux sensor files");
+            close();
+            return false;
+        }
+
+        Logger.log(LogLevel.INFO, LOGGER_TAG, "Added " + nextSensorId + " Linux sensors");
+        return true;
+    }
+
+    @Override
+    public void updateSensors() throws IOException {
+        for (int i = 0; i < sysfsInputs.size(); i++) {
+            SysfsInput input = sysfsInputs.get(i);
+            if (isActive(input.sensorId)) {
+                try {
+                    input.sensorRequest.setValue(reader.readLong(input.channel) * input.scale);
+                } catch (IOException e) {
+                    // Some hwmon inputs fail to read while the device is idle or asleep, skip them for this poll
+                }
+            }
+        }
+
+        updateCpuLoads();
+
+        if (isActive(memoryLoadSensorId) || isActive(memoryUsedSensorId)) {
+            updateMemory();
+        }
+    }
+
+    @Override
+    public void setActiveSensors(int[] sensorIds) {
+        boolean[] active = new boolean[nextSensorId];
+        for (int id : sensorIds) {
+            if (id >= 0 && id < active.length) {
+                active[id] = true;
+            }
+        }
+
+        activeSensors = active;
+    }
+
+    @Override
+    public void close() {
+        for (SysfsInput input : sysfsInputs) {
+            closeChannel(input.channel);
+        }
+
+        sysfsInputs.clear();
+        closeChannel(procStat);
+        closeChannel(procMeminfo);
+    }
+
+    private boolean isActive(int sensorId) {
+        // Every sensor is active until the active sensors have been set
+        return activeSensors == null || (sensorId >= 0 && sensorId < activeSensors.length && activeSensors[sensorId]);
+    }
+
+    private void addHwmonSensors() throws IOException {
+        for (Path chip : listSorted(HWMON_PATH)) {
+            final String chipName = readString(chip.resolve("name"), chip.getFileName().toString());
+            for (Path file : listSorted(chip)) {
+                Matcher matcher = HWMON_INPUT_PATTERN.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+
+                final String inputType = matcher.group(1);
+                final String prefix = inputType + matcher.group(2);
+                final String name = readString(chip.resolve(prefix + "_label"), prefix);
+
+                // hwmon reports millidegrees, RPM, millivolts and microwatts
+                switch (inputType) {
+                    case "temp":
+                        addSysfsInput(file, name, SensorType.TEMPERATURE, chipName, 0.001f,
+                                readMax(chip, prefix, 0.001f, 100.0f));
+                        break;
+                    case "fan":
+                        addSysfsInput(file, name, SensorType.FAN, chipName, 1.0f,
+                                readMax(chip, prefix, 1.0f, 5000.0f));
+                        break;
+                    case "in":
+                        addSysfsInput(file, name, SensorType.VOLTAGE, chipName, 0.001f,
+                                readMax(chip, prefix, 0.001f, 15.0f));
+                        break;
+                    case "power":
+                        addSysfsInput(file, name, SensorType.POWER, chipName, 0.000001f,
+                                readMax(chip, prefix, 0.000001f, 300.0f));
+                        break;
+                }
+            }
+        }
+    }
+
+    private void addCpuClockSensors() throws IOException {
+        if (!Files.isDirectory(CPU_PATH)) {
+            return;
+        }
+
+        for (Path cpu : listSorted(CPU_PATH)) {
+            Matcher matcher = CPU_DIRECTORY_PATTERN.matcher(cpu.getFileName().toString());
+            Path currentFrequency = cpu.resolve("cpufreq").resolve("scaling_cur_freq");
+            if (matcher.matches() && Files.isReadable(currentFrequency)) {
+                // cpufreq reports kHz
+                final float max = readFloat(cpu.resolve("cpufreq").resolve("cpuinfo_max_freq"), 0.001f, 5000.0f);
+                addSysfsInput(currentFrequency, "Core #" + matcher.group(1) + " Clock", SensorType.CLOCK,
+                        CPU_HARDWARE_TYPE, 0.001f, max);
+            }
+        }
+    }
+
+    private void addCpuLoadSensors(int numCpuLines) throws IOException {
+        cpuLoadSensors = new SensorRequest[numCpuLines];
+        cpuLoadSensorIds = new int[numCpuLines];
+        previousTotalTicks = new long[numCpuLines];
+        previousIdleTicks = new long[numCpuLines];
+
+        // The first line is the total of every core, followed by a line per core
+        for (int cpu = 0; cpu < numCpuLines; cpu++) {
+            final String name = cpu == 0 ? "CPU Total" : "CPU Core #" + (cpu - 1);
+            cpuLoadSensorIds[cpu] = nextSensorId;
+            cpuLoadSensors[cpu] = new SensorRequest(nextSensorId++, name, 100.0f, SensorType.LOAD,
+                    CPU_HARDWARE_TYPE, 0.0f);
+        }
+
+        // Take the first sample of the tick counts, loads are worked out from the change between samples
+        updateCpuLoads();
+    }
+
+    private void addMemorySensors() throws IOException {
+        final long totalKib = readMeminfo(MEM_TOTAL_KEY);
+        final long availableKib = readMeminfo(MEM_AVAILABLE_KEY);
+        final float totalGib = totalKib / KIB_PER_GIB;
+
+        memoryLoadSensorId = nextSensorId;
+        memoryLoadSensor = new SensorRequest(nextSensorId++, "Memory", 100.0f, SensorType.LOAD,
+                MEMORY_HARDWARE_TYPE, getMemoryLoad(totalKib, availableKib));
+        memoryUsedSensorId = nextSensorId;
+        memoryUsedSensor = new SensorRequest(nextSensorId++, "Used Memory", totalGib, SensorType.DATA,
+                MEMORY_HARDWARE_TYPE, (totalKib - availableKib) / KIB_PER_GIB);
+    }
+
+    private void addSysfsInput(Path path, String name, byte sensorType, String hardwareType, float scale, float max) {
+        FileChannel channel = null;
+        try {
+            channel = KernelFileReader.open(path);
+            final float initialValue = reader.readLong(channel) * scale;
+            SensorRequest sensorRequest = new SensorRequest(nextSensorId, name, max, sensorType, hardwareType,
+                    initialValue);
+            sysfsInputs.add(new SysfsInput(channel, sensorRequest, nextSensorId, scale));
+            nextSensorId++;
+        } catch (IOException e) {
+            // Inputs of devices that are not connected cannot be read, they are left out
+            Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Skipping unreadable sensor file: " + path);
+            closeChannel(channel);
+        }
+    }
+
+    private int countCpuLines() throws IOException {
+        ByteBuffer content = reader.read(procStat);
+        int numCpuLines = 0;
+        while (KernelFileReader.startsWith(content, CPU_PREFIX)) {
+            numCpuLines++;
+            KernelFileReader.skipLine(content);
+        }
+
+        return numCpuLines;
+    }
+
+    private void updateCpuLoads() throws IOException {
+        boolean anyActive = false;
+        for (int cpu = 0; cpu < cpuLoadSensorIds.length && !anyActive; cpu++) {
+            anyActive = isActive(cpuLoadSensorIds[cpu]);
+        }
+
+        if (!anyActive) {
+            return;
+        }
+
+        ByteBuffer content = reader.read(procStat);
+        for (int cpu = 0; cpu < cpuLoadSensors.length && KernelFileReader.startsWith(content, CPU_PREFIX); cpu++) {
+            KernelFileReader.skipToken(content);
+
+            long totalTicks = 0;
+            long idleTicks = 0;
+            for (int field = 0; field < NUM_CPU_TIME_FIELDS; field++) {
+                final long ticks = KernelFileReader.nextLong(content);
+                totalTicks += ticks;
+                if (field == IDLE_FIELD || field == IOWAIT_FIELD) {
+                    idleTicks += ticks;
+                }
+            }
+
+            KernelFileReader.skipLine(content);
+
+            final long elapsedTicks = totalTicks - previousTotalTicks[cpu];
+            final long elapsedIdleTicks = idleTicks - previousIdleTicks[cpu];
+            previousTotalTicks[cpu] = totalTicks;
+            previousIdleTicks[cpu] = idleTicks;
+
+            if (elapsedTicks > 0 && isActive(cpuLoadSensorIds[cpu])) {
+                cpuLoadSensors[cpu].setValue(100.0f * (elapsedTicks - elapsedIdleTicks) / elapsedTicks);
+            }
+        }
+    }
+
+    private void updateMemory() throws IOException {
+        ByteBuffer content = reader.read(procMeminfo);
+        long totalKib = -1;
+        long availableKib = -1;
+        while (content.hasRemaining() && (totalKib < 0 || availableKib < 0)) {
+            if (KernelFileReader.startsWith(content, MEM_TOTAL_KEY)) {
+                KernelFileReader.skipToken(content);
+                totalKib = KernelFileReader.nextLong(content);
+            } else if (KernelFileReader.startsWith(content, MEM_AVAILABLE_KEY)) {
+                KernelFileReader.skipToken(content);
+                availableKib = KernelFileReader.nextLong(content);
+            }
+
+            KernelFileReader.skipLine(content);
+        }
+
+        if (totalKib > 0 && availableKib >= 0) {
+            memoryLoadSensor.setValue(getMemoryLoad(totalKib, availableKib));
+            memoryUsedSensor.setValue((totalKib - availableKib) / KIB_PER_GIB);
+        }
+    }
+
+    private long readMeminfo(byte[] key) throws IOException {
+        ByteBuffer content = reader.read(procMeminfo);
+        while (content.hasRemaining()) {
+            if (KernelFileReader.startsWith(content, key)) {
+                KernelFileReader.skipToken(content);
+                return KernelFileReader.nextLong(content);
+            }
+
+            KernelFileReader.skipLine(content);
+        }
+
+        throw new IOException("No " + new String(key, StandardCharsets.US_ASCII) + " in " + PROC_MEMINFO_PATH);
+    }
+
+    private static float getMemoryLoad(long totalKib, long availableKib) {
+        return totalKib > 0 ? 100.0f * (totalKib - availableKib) / totalKib : 0.0f;
+    }
+
+    private float readMax(Path chip, String prefix, float scale, float defaultMax) {
+        // Use the critical or max limit of the input if the driver provides one
+        Path critical = chip.resolve(prefix + "_crit");
+        if (Files.isReadable(critical)) {
+            return readFloat(critical, scale, defaultMax);
+        }
+
+        return readFloat(chip.resolve(prefix + "_max"), scale, defaultMax);
+    }
+
+    private static float readFloat(Path path, float scale, float defaultValue) {
+        final String value = readString(path, null);
+        if (value != null) {
+            try {
+                final float scaled = Long.parseLong(value) * scale;
+                if (scaled > 0.0f) {
+                    return scaled;
+                }
+            } catch (NumberFormatException e) {
+                Logger.log(LogLevel.DEBUG, LOGGER_TAG, "Invalid number in " + path + ": " + value);
+            }
+        }
+
+        return defaultValue;
+    }
+
+    private static String readString(Path path, String defaultValue) {
+        if (!Files.isReadable(path)) {
+            return defaultValue;
+        }
+
+        try {
+            return new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim();
+        } catch (IOException e) {
+            return defaultValue;
+        }
+    }
+
+    private static List<Path> listSorted(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static void closeChannel(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.sources;
+
+/**
+ * SensorSource is the service-provider interface for acquiring hardware sensor data. A source adds the sensors it
+ * provides using sensor requests when opened, then sets their values each time it is updated. Sources are loaded
+ * through ServiceLoader from the META-INF/services/com.bennero.client.sources.SensorSource file, and the first one that
+ * opens successfully on the system is used. Apart from being opened, a source is only used by the sensor poll thread.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see com.bennero.client.bootstrapper.SensorRequest
+ * @since 1.0
+ */
+public interface SensorSource {
+    /**
+     * @return Name of the source, used for logging
+     * @since 1.0
+     */
+    String getName();
+
+    /**
+     * Open the source and add its sensors. A source that is not supported on this system must not add any sensors.
+     *
+     * @return True if the source is supported and opened, false otherwise
+     * @since 1.0
+     */
+    boolean open();
+
+    /**
+     * Read the active sensors and set their values
+     *
+     * @throws Exception If the sensors could not be read, polling stops as the next update would fail the same way
+     * @since 1.0
+     */
+    void updateSensors() throws Exception;
+
+    /**
+     * Limit the sensors read by updateSensors to the sensors with the given IDs, so that sensors that are not placed
+     * on a page are not read
+     *
+     * @param sensorIds Sorted sensor data IDs of the active sensors
+     * @since 1.0
+     */
+    void setActiveSensors(int[] sensorIds);
+
+    /**
+     * Release any resources held by the source
+     *
+     * @since 1.0
+     */
+    void close();
+}
@@ -0,0 +1,187 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.sources;
+
+import com.bennero.client.bootstrapper.SensorRequest;
+import com.bennero.common.SensorType;
+import com.bennero.common.logging.LogLevel;
+import com.bennero.common.logging.Logger;
+
+import java.util.Random;
+
+/**
+ * SyntheticSensorSource generates a configurable number of fake sensors, spread across many hardware groups, for
+ * finding the scaling limits of the sensor poll, GUI and network pipeline. Unlike the debug sensors, values follow
+ * waveform models that resemble real hardware: a bounded random walk (temperatures, clocks), a sine wave (loads that
+ * cycle) and a step burst (a quiet baseline with occasional bursts, like power draw under a short task). The random
+ * generator is seeded so that runs are repeatable. State is kept in primitive arrays so generating values does not
+ * allocate. Enabled with the -synthetic launch parameter rather than through the service loader.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorSource
+ * @since 1.0
+ */
+public class SyntheticSensorSource implements SensorSource {
+    private static final String LOGGER_TAG = SyntheticSensorSource.class.getSimpleName();
+    private static final long RANDOM_SEED = 0x5EB5023L;
+    private static final int SENSORS_PER_GROUP = 24;
+
+    private static final byte WAVEFORM_RANDOM_WALK = 0;
+    private static final byte WAVEFORM_SINE = 1;
+    private static final byte WAVEFORM_STEP_BURST = 2;
+    private static final byte NUM_WAVEFORMS = 3;
+
+    // Sensor types generated in turn, and the max value of each
+    private static final byte[] SENSOR_TYPES = {SensorType.TEMPERATURE, SensorType.LOAD, SensorType.CLOCK,
+            SensorType.POWER, SensorType.FAN, SensorType.VOLTAGE, SensorType.DATA, SensorType.THROUGHPUT};
+    private static final float[] SENSOR_TYPE_MAXES = {100.0f, 100.0f, 5000.0f, 300.0f, 3000.0f, 12.0f, 64.0f,
+            1000.0f};
+
+    // Chance per update of a step burst starting, and how many updates a burst lasts for
+    private static final float BURST_START_CHANCE = 0.02f;
+    private static final int MIN_BURST_UPDATES = 3;
+    private static final int MAX_BURST_UPDATES = 20;
+
+    private final int numSensors;
+    private final Random random;
+    private SensorRequest[] sensorRequests;
+    private byte[] waveforms;
+    private float[] maxes;
+    private float[] values;
+    private float[] baselines;
+    private int[] periodsMs;
+    private int[] phasesMs;
+    private int[] burstUpdatesRemaining;
+    private boolean[] activeSensors;
+
+    public SyntheticSensorSource(int numSensors) {
+        this.numSensors = numSensors;
+        this.random = new Random(RANDOM_SEED);
+        this.activeSensors = null;
+    }
+
+    @Override
+    public String getName() {
+        return "Synthetic (" + numSensors + " sensors)";
+    }
+
+    @Override
+    public boolean open() {
+        sensorRequests = new SensorRequest[numSensors];
+        waveforms = new byte[numSensors];
+        maxes = new float[numSensors];
+        values = new float[numSensors];
+        baselines = new float[numSensors];
+        periodsMs = new int[numSensors];
+        phasesMs = new int[numSensors];
+        burstUpdatesRemaining = new int[numSensors];
+
+        for (int id = 0; id < numSensors; id++) {
+            final int typeIndex = id % SENSOR_TYPES.length;
+            final float max = SENSOR_TYPE_MAXES[typeIndex];
+            final byte waveform = (byte) ((id / SENSOR_TYPES.length) % NUM_WAVEFORMS);
+
+            waveforms[id] = waveform;
+            maxes[id] = max;
+            baselines[id] = max * (0.1f + random.nextFloat() * 0.4f);
+            values[id] = baselines[id];
+            periodsMs[id] = 2000 + random.nextInt(58000);
+            phasesMs[id] = random.nextInt(periodsMs[id]);
+
+            sensorRequests[id] = new SensorRequest(id, getWaveformName(waveform) + " #" + id, max,
+                    SENSOR_TYPES[typeIndex], "SYNTHETIC_GROUP_" + (id / SENSORS_PER_GROUP), values[id]);
+        }
+
+        Logger.log(LogLevel.INFO, LOGGER_TAG, "Added " + numSensors + " synthetic sensors in " +
+                ((numSensors + SENSORS_PER_GROUP - 1) / SENSORS_PER_GROUP) + " hardware groups");
+        return true;
+    }
+
+    @Override
+    public void updateSensors() {
+        final long timeMs = System.currentTimeMillis();
+        for (int id = 0; id < numSensors; id++) {
+            if (activeSensors != null && !activeSensors[id]) {
+                continue;
+            }
+
+            switch (waveforms[id]) {
+                case WAVEFORM_RANDOM_WALK:
+                    values[id] = clamp(values[id] + (random.nextFloat() - 0.5f) * maxes[id] * 0.02f, maxes[id]);
+                    break;
+                case WAVEFORM_SINE:
+                    final double angle = 2.0 * Math.PI * ((timeMs + phasesMs[id]) % periodsMs[id]) / periodsMs[id];
+                    values[id] = maxes[id] * (0.5f + 0.4f * (float) Math.sin(angle));
+                    break;
+                case WAVEFORM_STEP_BURST:
+                    if (burstUpdatesRemaining[id] > 0) {
+                        burstUpdatesRemaining[id]--;
+                        values[id] = maxes[id] * 0.9f;
+                    } else if (random.nextFloat() < BURST_START_CHANCE) {
+                        burstUpdatesRemaining[id] = MIN_BURST_UPDATES +
+                                random.nextInt(MAX_BURST_UPDATES - MIN_BURST_UPDATES);
+                        values[id] = maxes[id] * 0.9f;
+                    } else {
+                        values[id] = baselines[id];
+                    }
+                    break;
+            }
+
+            sensorRequests[id].setValue(values[id]);
+        }
+    }
+
+    @Override
+    public void setActiveSensors(int[] sensorIds) {
+        boolean[] active = new boolean[numSensors];
+        for (int id : sensorIds) {
+            if (id >= 0 && id < numSensors) {
+                active[id] = true;
+            }
+        }
+
+        activeSensors = active;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is held open
+    }
+
+    private static String getWaveformName(byte waveform) {
+        switch (waveform) {
+            case WAVEFORM_SINE:
+                return "Sine";
+            case WAVEFORM_STEP_BURST:
+                return "Step Burst";
+            default:
+                return "Random Walk";
+        }
+    }
+
+    private static float clamp(float value, float max) {
+        return Math.max(0.0f, Math.min(max, value));
+    }
+}
@@ -50,6 +50,8 @@ public class ClientOptions extends Stage {
                          int currentSensorAnimationDuration,
                          ChangeListener<Integer> sensorUpdateIntervalMs,
                          ChangeListener<Integer> sensorAnimationDuration,
+                         boolean currentBinarySave,
+                         ChangeListener<Boolean> binarySave,
                          EventHandler doneEditing) {
         super.setTitle("Page Options");
         super.initModality(Modality.APPLICATION_MODAL);
@@ -67,6 +69,8 @@ public class ClientOptions extends Stage {
                 currentSensorUpdateInterval, 300, Integer.MAX_VALUE, sensorUpdateIntervalMs));
         optionsPane.getChildren().add(UIHelper.createIntSpinnerOption("Sensor Animation Duration",
                 currentSensorAnimationDuration, 150, Integer.MAX_VALUE, sensorAnimationDuration));
+        optionsPane.getChildren().add(UIHelper.createCheckboxOption("Binary Save Format", currentBinarySave,
+                binarySave));
 
         Button doneButton = new Button("Done");
         doneButton.setId("hw-default-button");
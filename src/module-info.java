@@ -36,4 +36,10 @@ module HardwareMonitorEditor
     requires javafx.web;
     requires HardwareMonitorCommon;
     requires java.desktop;
+
+    // Sensor sources are found with a ServiceLoader, on the module path the services are declared here instead of in
+    // META-INF/services
+    uses com.bennero.client.sources.SensorSource;
+    provides com.bennero.client.sources.SensorSource with com.bennero.client.bootstrapper.NativeSensorSource,
+            com.bennero.client.sources.LinuxSensorSource;
 }
\ No newline at end of file
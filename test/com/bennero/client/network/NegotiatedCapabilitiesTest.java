@@ -0,0 +1,100 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import com.bennero.client.messages.Capability;
+import com.bennero.client.messages.CapabilityDataPositions;
+import com.bennero.common.messages.ConnectionRequestReplyDataPositions;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.networking.NetworkUtils.writeToMessage;
+
+/**
+ * Tests that protocol features are only enabled by the capability bitmask exchanged in the handshake. A feature is used
+ * only if both the editor and the hardware monitor set its bit, whatever the version of the hardware monitor, and a
+ * hardware monitor that does not send a bitmask gets none of them.
+ *
+ * Run the main method with the editor classes on the class path, it exits with a non-zero status if a check fails.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see NegotiatedCapabilities
+ * @since 1.0
+ */
+public class NegotiatedCapabilitiesTest {
+    private static final int ALL_CAPABILITIES = Capability.BATCHED_SENSOR_VALUES | Capability.LAYOUT_SNAPSHOT |
+            Capability.LAYOUT_COMPRESSION | Capability.VARIABLE_FRAMING | Capability.UDP_STREAMING |
+            Capability.TIMESTAMPED_VALUES | Capability.SOURCE_CHANNELS;
+
+    public static void main(String[] args) {
+        testBatchedSensorValuesNeedBothSides();
+        testReplyWithoutBitmaskNegotiatesNothing();
+        testVersionDoesNotEnableCapabilities();
+        System.out.println("NegotiatedCapabilitiesTest passed");
+    }
+
+    private static void testBatchedSensorValuesNeedBothSides() {
+        check(NegotiatedCapabilities.negotiate(Capability.BATCHED_SENSOR_VALUES, Capability.BATCHED_SENSOR_VALUES)
+                .isBatchedSensorValuesSupported(), "Batched sensor values not negotiated when both sides support them");
+        check(!NegotiatedCapabilities.negotiate(Capability.BATCHED_SENSOR_VALUES, 0).isBatchedSensorValuesSupported(),
+                "Batched sensor values negotiated with a hardware monitor that does not support them");
+        check(!NegotiatedCapabilities.negotiate(0, Capability.BATCHED_SENSOR_VALUES).isBatchedSensorValuesSupported(),
+                "Batched sensor values negotiated with an editor that does not support them");
+        check(!NegotiatedCapabilities.negotiate(ALL_CAPABILITIES, ALL_CAPABILITIES & ~Capability.BATCHED_SENSOR_VALUES)
+                .isBatchedSensorValuesSupported(), "Batched sensor values enabled by another capability");
+    }
+
+    private static void testReplyWithoutBitmaskNegotiatesNothing() {
+        byte[] reply = createReply((byte) 0);
+        NegotiatedCapabilities negotiated = NegotiatedCapabilities.negotiate(ALL_CAPABILITIES,
+                ConnectionRequestReplyMessage.processConnectionRequestReplyMessageData(reply).getCapabilities());
+        check(negotiated.getCapabilities() == 0, "Reply without a bitmask negotiated 0x" +
+                Integer.toHexString(negotiated.getCapabilities()));
+    }
+
+    private static void testVersionDoesNotEnableCapabilities() {
+        // A later patch version of the hardware monitor does not imply any protocol feature
+        for (int patchVersion = 0; patchVersion <= 0xFF; patchVersion++) {
+            byte[] reply = createReply((byte) patchVersion);
+            writeToMessage(reply, CapabilityDataPositions.REPLY_CAPABILITIES_POS, Capability.LAYOUT_SNAPSHOT);
+            NegotiatedCapabilities negotiated = NegotiatedCapabilities.negotiate(ALL_CAPABILITIES,
+                    ConnectionRequestReplyMessage.processConnectionRequestReplyMessageData(reply).getCapabilities());
+            check(negotiated.getCapabilities() == Capability.LAYOUT_SNAPSHOT, "Patch version " + patchVersion +
+                    " negotiated 0x" + Integer.toHexString(negotiated.getCapabilities()));
+        }
+    }
+
+    private static byte[] createReply(byte patchVersion) {
+        byte[] reply = new byte[MESSAGE_NUM_BYTES];
+        reply[ConnectionRequestReplyDataPositions.CONNECTION_ACCEPTED] = 0x01;
+        reply[ConnectionRequestReplyDataPositions.PATCH_VERSION_POS] = patchVersion;
+        return reply;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import com.bennero.client.messages.ExtendedMessageType;
+import com.bennero.client.messages.SensorValuesDataPositions;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+import static com.bennero.common.networking.NetworkUtils.writeToMessage;
+
+/**
+ * Allocation regression test for sending sensor values. Once warmed up, sending sensor values should not allocate:
+ * messages are encoded into a reused array and copied into buffers from the message buffer pool, and datagrams are
+ * encoded into the streamers own buffers. The test measures the bytes allocated by the sending thread over 10,000
+ * sensor updates with ThreadMXBean, over TCP through the network writer and over UDP through the sensor value
+ * streamer, and fails if either goes over a small allowance for the JVM allocating on its own.
+ *
+ * Run the main method with the editor classes on the class path, it exits with a non-zero status if a check fails.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see MessageBufferPool
+ * @see NetworkWriter
+ * @see SensorValueStreamer
+ * @since 1.0
+ */
+public class SensorValueAllocationTest {
+    private static final int NUM_SENSOR_UPDATES = 10000;
+    private static final int SENSORS_PER_POLL = 40;
+    private static final int WARM_UP_POLLS = 20000;
+
+    // Sending a new array per message would allocate around 100KB for 10,000 batched updates
+    private static final long ALLOWED_BYTES = 1024;
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int POOL_SIZE = QUEUE_CAPACITY + NetworkWriter.MAX_GATHERED_MESSAGES;
+
+    public static void main(String[] args) throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        check(threadMXBean.isThreadAllocatedMemorySupported(), "Thread allocated memory is not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        testNetworkWriter(threadMXBean);
+        testSensorValueStreamer(threadMXBean);
+        System.out.println("SensorValueAllocationTest passed");
+    }
+
+    private static void testNetworkWriter(com.sun.management.ThreadMXBean threadMXBean) throws Exception {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SocketChannel client = SocketChannel.open(server.getLocalAddress());
+            SocketChannel accepted = server.accept();
+
+            // Read everything written so that the writer never stalls on a full socket
+            Thread drain = new Thread(() ->
+            {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                try {
+                    while (accepted.read(buffer) >= 0) {
+                        buffer.clear();
+                    }
+                } catch (IOException e) {
+                    // Closed at the end of the test
+                }
+            });
+            drain.setDaemon(true);
+            drain.start();
+
+            MessageBufferPool bufferPool = new MessageBufferPool(POOL_SIZE,
+                    MessageFraming.LENGTH_PREFIX_NUM_BYTES + MESSAGE_NUM_BYTES);
+            NetworkWriter writer = new NetworkWriter(client, bufferPool, QUEUE_CAPACITY, null);
+            writer.start();
+
+            byte[] message = new byte[MESSAGE_NUM_BYTES];
+            SensorValueBatch batch = new SensorValueBatch();
+            for (int poll = 0; poll < WARM_UP_POLLS; poll++) {
+                writeSensorValues(writer, bufferPool, message, batch, poll);
+            }
+
+            final long allocatedBuffers = bufferPool.getAllocatedBufferCount();
+            final long threadId = Thread.currentThread().getId();
+            final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int poll = 0; poll < NUM_SENSOR_UPDATES / SENSORS_PER_POLL; poll++) {
+                writeSensorValues(writer, bufferPool, message, batch, poll);
+            }
+            final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+            writer.stopThread();
+            client.close();
+            accepted.close();
+
+            System.out.println("Network writer: " + allocated + " bytes allocated for " + NUM_SENSOR_UPDATES +
+                    " sensor updates");
+            check(allocated <= ALLOWED_BYTES, "Sending " + NUM_SENSOR_UPDATES + " sensor updates allocated " +
+                    allocated + " bytes");
+            check(bufferPool.getAllocatedBufferCount() == allocatedBuffers, "Buffer pool allocated " +
+                    (bufferPool.getAllocatedBufferCount() - allocatedBuffers) + " buffers after warming up");
+        }
+    }
+
+    private static void testSensorValueStreamer(com.sun.management.ThreadMXBean threadMXBean) throws Exception {
+        try (DatagramChannel receiver = DatagramChannel.open()) {
+            receiver.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SensorValueStreamer streamer = new SensorValueStreamer((InetSocketAddress) receiver.getLocalAddress());
+
+            SensorValueBatch batch = new SensorValueBatch();
+            for (int poll = 0; poll < WARM_UP_POLLS; poll++) {
+                fillBatch(batch, poll);
+                streamer.send(batch);
+            }
+
+            final long threadId = Thread.currentThread().getId();
+            final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int poll = 0; poll < NUM_SENSOR_UPDATES / SENSORS_PER_POLL; poll++) {
+                fillBatch(batch, poll);
+                streamer.send(batch);
+            }
+            final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+            streamer.close();
+
+            System.out.println("Sensor value streamer: " + allocated + " bytes allocated for " +
+                    NUM_SENSOR_UPDATES + " sensor updates");
+            check(allocated <= ALLOWED_BYTES, "Streaming " + NUM_SENSOR_UPDATES + " sensor updates allocated " +
+                    allocated + " bytes");
+        }
+    }
+
+    /**
+     * Send a poll of sensor values in SENSOR_VALUES messages in the same way as NetworkClient when variable framing
+     * has been negotiated
+     */
+    private static void writeSensorValues(NetworkWriter writer, MessageBufferPool bufferPool, byte[] message,
+                                          SensorValueBatch batch, int poll) {
+        fillBatch(batch, poll);
+
+        int entries = 0;
+        Arrays.fill(message, (byte) 0);
+        for (int i = 0; i < batch.size(); i++) {
+            final int entryPos = SensorValuesDataPositions.FIRST_ENTRY_POS +
+                    (entries * SensorValuesDataPositions.ENTRY_NUM_BYTES);
+            message[entryPos + SensorValuesDataPositions.ENTRY_ID_OFFSET] = (byte) batch.getSensorId(i);
+            writeToMessage(message, entryPos + SensorValuesDataPositions.ENTRY_VALUE_OFFSET, batch.getValue(i));
+            entries++;
+
+            if (entries == SensorValuesDataPositions.MAX_ENTRIES || i == batch.size() - 1) {
+                message[MESSAGE_TYPE_POS] = ExtendedMessageType.SENSOR_VALUES;
+                message[SensorValuesDataPositions.COUNT_POS] = (byte) entries;
+
+                ByteBuffer buffer = bufferPool.acquire();
+                MessageFraming.writeFrame(buffer, message, 0, MESSAGE_NUM_BYTES);
+                buffer.flip();
+                writer.write(buffer, true);
+
+                Arrays.fill(message, (byte) 0);
+                entries = 0;
+            }
+        }
+    }
+
+    private static void fillBatch(SensorValueBatch batch, int poll) {
+        batch.clear();
+        for (int id = 0; id < SENSORS_PER_POLL; id++) {
+            batch.put(id, poll + id);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * ============================================ GNU GENERAL PUBLIC LICENSE =============================================
+ * Hardware Monitor for the remote monitoring of a systems hardware information
+ * Copyright (C) 2021  Christian Benner
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Additional terms included with this license are to:
+ * - Preserve legal notices and author attributions such as this one. Do not remove the original author license notices
+ *   from the program
+ * - Preserve the donation button and its link to the original authors donation page (christianbenner35@gmail.com)
+ * - Only break the terms if given permission from the original author christianbenner35@gmail.com
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <https://www.gnu.org/licenses/>.
+ * =====================================================================================================================
+ */
+
+package com.bennero.client.network;
+
+import com.bennero.client.messages.ExtendedMessageType;
+import com.bennero.client.messages.SensorValueDatagramDataPositions;
+import com.bennero.client.messages.SensorValuesDataPositions;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.bennero.common.Constants.MESSAGE_NUM_BYTES;
+import static com.bennero.common.Constants.MESSAGE_TYPE_POS;
+import static com.bennero.common.networking.NetworkUtils.readFloat;
+import static com.bennero.common.networking.NetworkUtils.readInt;
+
+/**
+ * Loopback integration test for streaming sensor values over UDP. A SensorValueStreamer sends to a datagram channel on
+ * the loopback address which decodes the datagrams the way the hardware monitor does, keeping a value for a sensor only
+ * if it is from a later poll than the value it already has. The test checks that polls arrive in order with increasing
+ * sequence numbers, that every datagram of a poll shares its sequence number, that a late datagram from an earlier
+ * poll does not replace a newer value, and that sending to a port nobody listens on drops datagrams instead of
+ * throwing.
+ *
+ * Run the main method with the editor classes on the class path, it exits with a non-zero status if a check fails.
+ *
+ * @author Christian Benner
+ * @version %I%, %G%
+ * @see SensorValueStreamer
+ * @since 1.0
+ */
+public class SensorValueStreamerLoopbackTest {
+    private static final int RECEIVE_TIMEOUT_MS = 2000;
+    private static final int NUM_POLLS = 50;
+
+    public static void main(String[] args) throws Exception {
+        testPollsArriveInOrder();
+        testPollSplitAcrossDatagramsSharesSequence();
+        testLateDatagramIsStale();
+        testUnreachableMonitorDropsDatagrams();
+        System.out.println("SensorValueStreamerLoopbackTest passed");
+    }
+
+    private static void testPollsArriveInOrder() throws IOException {
+        try (Receiver receiver = new Receiver()) {
+            SensorValueStreamer streamer = new SensorValueStreamer(receiver.getAddress());
+            SensorValueBatch batch = new SensorValueBatch();
+            try {
+                for (int poll = 0; poll < NUM_POLLS; poll++) {
+                    batch.clear();
+                    batch.put(1, poll);
+                    batch.put(2, poll * 2.0f);
+                    streamer.send(batch);
+                }
+            } finally {
+                streamer.close();
+            }
+
+            int previousSequence = 0;
+            for (int poll = 0; poll < NUM_POLLS; poll++) {
+                Datagram datagram = receiver.receive();
+                check(datagram.sequence == previousSequence + 1, "Poll " + poll + " has sequence " +
+                        datagram.sequence + " after " + previousSequence);
+                check(datagram.values.get(1) == poll && datagram.values.get(2) == poll * 2.0f,
+                        "Poll " + poll + " has the wrong values " + datagram.values);
+                previousSequence = datagram.sequence;
+            }
+
+            check(streamer.getSentDatagramCount() == NUM_POLLS, "Sent " + streamer.getSentDatagramCount() +
+                    " datagrams for " + NUM_POLLS + " polls");
+            check(streamer.getDroppedDatagramCount() == 0, "Dropped " + streamer.getDroppedDatagramCount() +
+                    " datagrams on loopback");
+        }
+    }
+
+    private static void testPollSplitAcrossDatagramsSharesSequence() throws IOException {
+        final int numSensors = (SensorValueDatagramDataPositions.MAX_ENTRIES * 2) + 3;
+
+        try (Receiver receiver = new Receiver()) {
+            SensorValueStreamer streamer = new SensorValueStreamer(receiver.getAddress());
+            SensorValueBatch batch = new SensorValueBatch();
+            for (int id = 0; id < numSensors; id++) {
+                batch.put(id, id + 0.5f);
+            }
+
+            try {
+                streamer.send(batch);
+                streamer.send(batch);
+            } finally {
+                streamer.close();
+            }
+
+            for (int poll = 1; poll <= 2; poll++) {
+                Map<Integer, Float> values = new HashMap<>();
+                for (int i = 0; i < 3; i++) {
+                    Datagram datagram = receiver.receive();
+                    check(datagram.sequence == poll, "Datagram " + i + " of poll " + poll + " has sequence " +
+                            datagram.sequence);
+                    values.putAll(datagram.values);
+                }
+
+                check(values.size() == numSensors, "Poll " + poll + " carried " + values.size() + " of " +
+                        numSensors + " sensors");
+                for (int id = 0; id < numSensors; id++) {
+                    check(values.get(id) == id + 0.5f, "Sensor " + id + " has the wrong value " + values.get(id));
+                }
+            }
+        }
+    }
+
+    private static void testLateDatagramIsStale() throws IOException {
+        try (Receiver receiver = new Receiver()) {
+            SensorValueStreamer streamer = new SensorValueStreamer(receiver.getAddress());
+            SensorValueBatch batch = new SensorValueBatch();
+            try {
+                batch.put(1, 10.0f);
+                streamer.send(batch);
+                batch.clear();
+                batch.put(1, 20.0f);
+                streamer.send(batch);
+            } finally {
+                streamer.close();
+            }
+
+            Datagram first = receiver.receive();
+            Datagram second = receiver.receive();
+
+            // Apply the second poll before the first, as if the first was delayed on the network
+            LatestValues latestValues = new LatestValues();
+            check(latestValues.apply(second) == 1, "Value from the newer poll was not applied");
+            check(latestValues.apply(first) == 0, "Value from the older poll replaced a newer value");
+            check(latestValues.get(1) == 20.0f, "Sensor has the stale value " + latestValues.get(1));
+
+            // A duplicate of a datagram that has been applied is stale too
+            check(latestValues.apply(second) == 0, "Duplicate datagram was applied twice");
+        }
+    }
+
+    private static void testUnreachableMonitorDropsDatagrams() throws IOException {
+        // Bind and release a port so that nothing is listening on it
+        final InetSocketAddress address;
+        try (Receiver receiver = new Receiver()) {
+            address = receiver.getAddress();
+        }
+
+        SensorValueStreamer streamer = new SensorValueStreamer(address);
+        SensorValueBatch batch = new SensorValueBatch();
+        batch.put(1, 1.0f);
+        try {
+            for (int poll = 0; poll < NUM_POLLS; poll++) {
+                streamer.send(batch);
+            }
+        } finally {
+            streamer.close();
+        }
+
+        check(streamer.getSentDatagramCount() + streamer.getDroppedDatagramCount() == NUM_POLLS,
+                "Sent " + streamer.getSentDatagramCount() + " and dropped " + streamer.getDroppedDatagramCount() +
+                        " datagrams for " + NUM_POLLS + " polls");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * A decoded sensor values datagram
+     */
+    private static class Datagram {
+        private final int sequence;
+        private final Map<Integer, Float> values;
+
+        private Datagram(int sequence, Map<Integer, Float> values) {
+            this.sequence = sequence;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Latest value of each sensor, applying a value only if it is from a later poll than the current value in the same
+     * way as the hardware monitor
+     */
+    private static class LatestValues {
+        private final Map<Integer, Integer> sequences = new HashMap<>();
+        private final Map<Integer, Float> values = new HashMap<>();
+
+        private int apply(Datagram datagram) {
+            int applied = 0;
+            for (Map.Entry<Integer, Float> entry : datagram.values.entrySet()) {
+                final Integer sequence = sequences.get(entry.getKey());
+
+                // Compared by difference so that the order is still right once the sequence number wraps
+                if (sequence == null || datagram.sequence - sequence > 0) {
+                    sequences.put(entry.getKey(), datagram.sequence);
+                    values.put(entry.getKey(), entry.getValue());
+                    applied++;
+                }
+            }
+
+            return applied;
+        }
+
+        private float get(int sensorId) {
+            return values.get(sensorId);
+        }
+    }
+
+    /**
+     * Datagram channel on the loopback address standing in for the hardware monitor
+     */
+    private static class Receiver implements AutoCloseable {
+        private final DatagramChannel channel;
+
+        private Receiver() throws IOException {
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            channel.socket().setSoTimeout(RECEIVE_TIMEOUT_MS);
+        }
+
+        private InetSocketAddress getAddress() throws IOException {
+            return (InetSocketAddress) channel.getLocalAddress();
+        }
+
+        private Datagram receive() throws IOException {
+            // The socket is used to receive so that a lost datagram fails the test on the timeout rather than hanging
+            final byte[] bytes = new byte[MESSAGE_NUM_BYTES];
+            DatagramPacket packet = new DatagramPacket(bytes, bytes.length);
+            channel.socket().receive(packet);
+
+            check(bytes[MESSAGE_TYPE_POS] == ExtendedMessageType.SENSOR_VALUES_DATAGRAM, "Unexpected message type " +
+                    bytes[MESSAGE_TYPE_POS]);
+            final int sequence = readInt(bytes, SensorValueDatagramDataPositions.SEQUENCE_POS);
+            final int count = bytes[SensorValueDatagramDataPositions.COUNT_POS] & 0xFF;
+            check(packet.getLength() == SensorValueDatagramDataPositions.FIRST_ENTRY_POS +
+                    (count * SensorValuesDataPositions.ENTRY_NUM_BYTES), "Datagram of " + count + " entries is " +
+                    packet.getLength() + " bytes");
+
+            Map<Integer, Float> values = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                final int entryPos = SensorValueDatagramDataPositions.FIRST_ENTRY_POS +
+                        (i * SensorValuesDataPositions.ENTRY_NUM_BYTES);
+                values.put(bytes[entryPos + SensorValuesDataPositions.ENTRY_ID_OFFSET] & 0xFF,
+                        readFloat(bytes, entryPos + SensorValuesDataPositions.ENTRY_VALUE_OFFSET));
+            }
+
+            return new Datagram(sequence, values);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}